@@ -1,29 +1,36 @@
-package auth;
-
-import dao.AuthDao;
-import request.ParsedRequest;
-
-public class AuthFilter {
-
-    public static class AuthResult {
-        public boolean isLoggedIn;
-        public String userName;
-    }
-
-    public static AuthResult doFilter(ParsedRequest parsedRequest) {
-        AuthDao authDao = AuthDao.getInstance();
-        var result = new AuthResult();
-        String hash = parsedRequest.getCookieValue("auth");
-        if (hash == null) {
-            return result;
-        }
-        var authRes = authDao.query("hash", hash);
-        if (authRes.isEmpty()) {
-            result.isLoggedIn = false;
-            return result;
-        }
-        result.isLoggedIn = true;
-        result.userName = authRes.getFirst().getUserName();
-        return result;
-    }
-}
+package auth;
+
+import request.ParsedRequest;
+
+public class AuthFilter {
+
+    public static class AuthResult {
+        public boolean isLoggedIn;
+        public String userName;
+    }
+
+    // resolved once per request and kept on its Principal
+    public static AuthResult doFilter(ParsedRequest parsedRequest) {
+        return parsedRequest.getPrincipal().getAuthResult();
+    }
+
+    static AuthResult authenticate(ParsedRequest parsedRequest) {
+        var result = new AuthResult();
+        String hash = parsedRequest.getCookieValue("auth");
+        if (hash == null) {
+            return result;
+        }
+        // a signed token is checked in place, a stored session is a memory lookup once
+        // it has been seen
+        String userName = SessionTokens.isToken(hash)
+                ? SessionTokens.getInstance().verify(hash)
+                : SessionCache.getInstance().getUserName(hash);
+        if (userName == null) {
+            result.isLoggedIn = false;
+            return result;
+        }
+        result.isLoggedIn = true;
+        result.userName = userName;
+        return result;
+    }
+}
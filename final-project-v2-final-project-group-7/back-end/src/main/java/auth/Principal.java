@@ -0,0 +1,48 @@
+package auth;
+
+import dao.UserDao;
+import dto.UserDto;
+import request.ParsedRequest;
+
+// The caller of one request. The session and the user are looked up on first use and
+// kept with the ParsedRequest, so however many checks a request goes through it costs
+// at most one session lookup and one user query.
+public class Principal {
+
+    private final ParsedRequest request;
+    private AuthFilter.AuthResult authResult;
+    private UserDto user;
+    private boolean userLoaded;
+
+    public Principal(ParsedRequest request) {
+        this.request = request;
+    }
+
+    public AuthFilter.AuthResult getAuthResult() {
+        if (authResult == null) {
+            authResult = AuthFilter.authenticate(request);
+        }
+        return authResult;
+    }
+
+    public boolean isLoggedIn() {
+        return getAuthResult().isLoggedIn;
+    }
+
+    public String getUserName() {
+        return getAuthResult().userName;
+    }
+
+    // the logged in user, null when not logged in or the user is gone
+    public UserDto getUser() {
+        if (!userLoaded) {
+            userLoaded = true;
+            if (isLoggedIn()) {
+                user = UserDao.getInstance().query("userName", getUserName()).stream()
+                        .findFirst()
+                        .orElse(null);
+            }
+        }
+        return user;
+    }
+}
@@ -0,0 +1,138 @@
+package auth;
+
+import dao.AuthDao;
+import dto.AuthDto;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Resolves auth cookies to user names without a Mongo round trip per request. A session
+// is kept until its expireTime, at most ttlMs. Unknown hashes are remembered for
+// negativeTtlMs so a client retrying a bad cookie doesn't reach the database each time.
+// When full, an eighth of the entries is dropped at once, expired ones first.
+public class SessionCache {
+
+    private static SessionCache instance;
+    private static Supplier<SessionCache> instanceSupplier =
+            () -> new SessionCache(10000, 60000, 5000, System::currentTimeMillis);
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final long negativeTtlMs;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // userName is null for a hash that isn't a session
+    private record Entry(String userName, long expiresAt) {
+    }
+
+    public SessionCache(int maxEntries, long ttlMs, long negativeTtlMs, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.negativeTtlMs = negativeTtlMs;
+        this.clock = clock;
+    }
+
+    public static synchronized SessionCache getInstance() {
+        if (instance != null) {
+            return instance;
+        }
+        instance = instanceSupplier.get();
+        return instance;
+    }
+
+    public static synchronized void setInstanceSupplier(Supplier<SessionCache> instanceSupplier) {
+        SessionCache.instanceSupplier = instanceSupplier;
+        instance = null;
+    }
+
+    // the user of the session, null when the hash is unknown or the session expired
+    public String getUserName(String hash) {
+        long now = clock.getAsLong();
+        Entry entry = entries.get(hash);
+        if (entry != null && entry.expiresAt > now) {
+            if (entry.userName == null) {
+                negativeHits.increment();
+            } else {
+                hits.increment();
+            }
+            return entry.userName;
+        }
+        misses.increment();
+        entry = load(hash, now);
+        if (entries.size() >= maxEntries) {
+            evict(now);
+        }
+        entries.put(hash, entry);
+        return entry.userName;
+    }
+
+    // forget the hash, for a session that was removed or just created
+    public void invalidate(String hash) {
+        entries.remove(hash);
+    }
+
+    private Entry load(String hash, long now) {
+        List<AuthDto> sessions = AuthDao.getInstance().querySession(hash);
+        if (!sessions.isEmpty()) {
+            AuthDto session = sessions.getFirst();
+            long expiresAt = now + ttlMs;
+            if (session.getExpireTime() != null) {
+                // expireTime is in epoch seconds
+                expiresAt = Math.min(expiresAt, session.getExpireTime() * 1000);
+            }
+            if (expiresAt > now) {
+                return new Entry(session.getUserName(), expiresAt);
+            }
+        }
+        return new Entry(null, now + negativeTtlMs);
+    }
+
+    private void evict(long now) {
+        int target = maxEntries - Math.max(1, maxEntries / 8);
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getNegativeHits() {
+        return negativeHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return "SessionCache{size=" + size() + ", hits=" + getHits()
+                + ", negativeHits=" + getNegativeHits() + ", misses=" + getMisses()
+                + ", evictions=" + getEvictions() + "}";
+    }
+}
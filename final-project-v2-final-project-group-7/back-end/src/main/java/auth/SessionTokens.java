@@ -0,0 +1,176 @@
+package auth;
+
+import server.ServerConfig;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Stateless sessions: the auth cookie carries the user and the expiry, signed with
+// HMAC-SHA256, so checking it needs no database and any node holding the keys can do it.
+// A token is t1.<keyId>.<base64url userName>.<expireTime>.<base64url signature>.
+// Keys come from auth.tokenKeys=id:secret,id:secret (AUTH_TOKEN_KEYS). The first one
+// signs and all of them verify, so a key is rotated by putting the new one in front and
+// dropping the old one once its tokens have expired. auth.mode=token makes LoginHandler
+// issue tokens instead of storing sessions, tokens already out keep working either way.
+public class SessionTokens {
+
+    private static final String PREFIX = "t1.";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    // the lifetime LoginHandler has always given a stored session, so switching
+    // auth.mode doesn't change how long a login lasts
+    public static final int DEFAULT_TTL_SECONDS = 60000;
+
+    private static SessionTokens instance;
+    private static Supplier<SessionTokens> instanceSupplier = SessionTokens::load;
+
+    private final boolean enabled;
+    private final String signingKeyId;
+    // initialized prototypes, cloned for every use since a Mac isn't thread safe
+    private final Map<String, Mac> keys = new LinkedHashMap<>();
+    private final long ttlSeconds;
+    private final LongSupplier clock;
+    // signature of a revoked token -> its expireTime, the entry is useless after that
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    // keys in order of preference, clock in epoch seconds
+    public SessionTokens(boolean enabled, Map<String, byte[]> keys, long ttlSeconds,
+                         LongSupplier clock) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one signing key is needed");
+        }
+        this.enabled = enabled;
+        this.signingKeyId = keys.keySet().iterator().next();
+        this.ttlSeconds = ttlSeconds;
+        this.clock = clock;
+        keys.forEach((id, secret) -> {
+            if (id.isEmpty() || id.contains(".")) {
+                throw new IllegalArgumentException("Bad key id " + id);
+            }
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(new SecretKeySpec(secret, ALGORITHM));
+                this.keys.put(id, mac);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    public static SessionTokens load() {
+        boolean enabled = "token".equalsIgnoreCase(ServerConfig.getString("auth.mode", "session"));
+        String spec = ServerConfig.getString("auth.tokenKeys", null);
+        Map<String, byte[]> keys = new LinkedHashMap<>();
+        if (spec == null) {
+            if (enabled) {
+                System.out.println("auth.tokenKeys is not set, tokens are signed with a random"
+                        + " key and only this process accepts them");
+            }
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            keys.put("0", secret);
+        } else {
+            for (String key : spec.split(",")) {
+                int colon = key.indexOf(':');
+                if (colon < 0) {
+                    throw new IllegalArgumentException("auth.tokenKeys entries are id:secret");
+                }
+                keys.put(key.substring(0, colon).trim(),
+                        key.substring(colon + 1).trim().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return new SessionTokens(enabled, keys,
+                ServerConfig.getInt("auth.tokenTtlSeconds", DEFAULT_TTL_SECONDS),
+                () -> Instant.now().getEpochSecond());
+    }
+
+    public static synchronized SessionTokens getInstance() {
+        if (instance != null) {
+            return instance;
+        }
+        instance = instanceSupplier.get();
+        return instance;
+    }
+
+    public static synchronized void setInstanceSupplier(Supplier<SessionTokens> instanceSupplier) {
+        SessionTokens.instanceSupplier = instanceSupplier;
+        instance = null;
+    }
+
+    public static boolean isToken(String cookieValue) {
+        return cookieValue.startsWith(PREFIX);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String issue(String userName) {
+        String unsigned = PREFIX + signingKeyId + "."
+                + ENCODER.encodeToString(userName.getBytes(StandardCharsets.UTF_8)) + "."
+                + (clock.getAsLong() + ttlSeconds);
+        return unsigned + "." + ENCODER.encodeToString(sign(signingKeyId, unsigned));
+    }
+
+    // the user the token was issued to, null when it is forged, expired, revoked or
+    // signed with a key that is no longer configured
+    public String verify(String token) {
+        int keyEnd = token.indexOf('.', PREFIX.length());
+        int userEnd = keyEnd < 0 ? -1 : token.indexOf('.', keyEnd + 1);
+        int expireEnd = userEnd < 0 ? -1 : token.indexOf('.', userEnd + 1);
+        if (!isToken(token) || expireEnd < 0) {
+            return null;
+        }
+        String keyId = token.substring(PREFIX.length(), keyEnd);
+        try {
+            long expireTime = Long.parseLong(token.substring(userEnd + 1, expireEnd));
+            String signature = token.substring(expireEnd + 1);
+            if (!keys.containsKey(keyId) || expireTime <= clock.getAsLong()
+                    || !MessageDigest.isEqual(DECODER.decode(signature),
+                            sign(keyId, token.substring(0, expireEnd)))
+                    || revoked.containsKey(signature)) {
+                return null;
+            }
+            return new String(DECODER.decode(token.substring(keyEnd + 1, userEnd)),
+                    StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            // a bad number or bad base64
+            return null;
+        }
+    }
+
+    // Rejects the token from now on, on this node only. The list holds a token until it
+    // expires anyway, so it stays as small as the number of tokens revoked early.
+    public void revoke(String token) {
+        if (verify(token) == null) {
+            return;
+        }
+        int signatureStart = token.lastIndexOf('.');
+        long expireTime = Long.parseLong(token.substring(
+                token.lastIndexOf('.', signatureStart - 1) + 1, signatureStart));
+        long now = clock.getAsLong();
+        revoked.values().removeIf(expiry -> expiry <= now);
+        revoked.put(token.substring(signatureStart + 1), expireTime);
+    }
+
+    private byte[] sign(String keyId, String unsigned) {
+        try {
+            Mac mac = (Mac) keys.get(keyId).clone();
+            return mac.doFinal(unsigned.getBytes(StandardCharsets.UTF_8));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,38 +1,54 @@
-package dao;
-
-import com.mongodb.client.MongoCollection;
-import dto.AuthDto;
-import org.bson.Document;
-
-import java.util.function.Supplier;
-
-public class AuthDao extends BaseDao<AuthDto> {
-
-    private static AuthDao instance;
-    private static Supplier<AuthDao> instanceSupplier = () -> {
-        return new AuthDao(MongoConnection.getCollection("AuthDao"));
-    };
-
-    private AuthDao(MongoCollection<Document> collection) {
-        super(collection);
-    }
-
-    @Override
-    Supplier<AuthDto> getFromDocument(Document document) {
-        var auth = new AuthDto();
-        auth.fromDocument(document);
-        return () -> auth;
-    }
-
-    public static AuthDao getInstance() {
-        if (instance != null) {
-            return instance;
-        }
-        instance = instanceSupplier.get();
-        return instance;
-    }
-
-    public static void setInstanceSupplier(Supplier<AuthDao> instanceSupplier){
-        AuthDao.instanceSupplier = instanceSupplier;
-    }
-}
+package dao;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import dto.AuthDto;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+public class AuthDao extends BaseDao<AuthDto> {
+
+    private static final Bson SESSION_FIELDS = Projections.include("userName", "expireTime");
+
+    // volatile for the double-checked getInstance, requests run on many threads
+    private static volatile AuthDao instance;
+    private static Supplier<AuthDao> instanceSupplier = () -> {
+        return new AuthDao(MongoConnection.getCollection("AuthDao"));
+    };
+
+    private AuthDao(MongoCollection<Document> collection) {
+        super(collection, AuthDto.class);
+    }
+
+    // whose session the hash is and until when, all a login check reads
+    public List<AuthDto> querySession(String hash) {
+        return query(Filters.eq("hash", hash), SESSION_FIELDS);
+    }
+
+    public void deleteSession(String hash) {
+        collection.deleteOne(Filters.eq("hash", hash));
+    }
+
+    public static AuthDao getInstance() {
+        AuthDao dao = instance;
+        if (dao == null) {
+            synchronized (AuthDao.class) {
+                dao = instance;
+                if (dao == null) {
+                    dao = instanceSupplier.get();
+                    instance = dao;
+                }
+            }
+        }
+        return dao;
+    }
+
+    public static synchronized void setInstanceSupplier(Supplier<AuthDao> instanceSupplier){
+        AuthDao.instanceSupplier = instanceSupplier;
+        instance = null;
+    }
+}
@@ -1,45 +1,130 @@
-package dao;
-
-import com.mongodb.client.MongoCollection;
-import dto.BaseDto;
-import org.bson.Document;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.function.Supplier;
-
-public abstract class BaseDao<T extends BaseDto> {
-
-    final MongoCollection<Document> collection;
-
-    protected BaseDao(MongoCollection<Document> collection) {
-        this.collection = collection;
-    }
-
-    public List<T> query(String key, Object value) {
-        return collection.find(new Document(key, value))
-                .into(new ArrayList<>())
-                .stream()
-                .map(doc -> {
-                    var supplier = getFromDocument(doc);
-                    var dto = supplier.get();
-                    dto.loadUniqueId(doc);
-                    return dto;
-                })
-                .toList();
-    }
-
-    public void put(T dto) {
-        if (dto.getUniqueId() == null) {
-            collection.insertOne(dto.toDocument());
-        } else {
-            collection.replaceOne(dto.getObjectId(), dto.toDocument());
-        }
-    }
-
-    public void delete(String uniqueId) {
-        collection.deleteOne(new Document("_id", new org.bson.types.ObjectId(uniqueId)));
-    }
-
-    abstract Supplier<T> getFromDocument(Document document);
-}
+package dao;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import dto.BaseDto;
+import dto.DtoCodecs;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public abstract class BaseDao<T extends BaseDto> {
+
+    final MongoCollection<Document> collection;
+    // the same collection read and written as T through its DtoCodec, without building a
+    // Document for every record
+    final MongoCollection<T> dtoCollection;
+
+    protected BaseDao(MongoCollection<Document> collection, Class<T> type) {
+        this.collection = collection;
+        this.dtoCollection = collection.withCodecRegistry(DtoCodecs.REGISTRY)
+                .withDocumentClass(type);
+    }
+
+    public List<T> query(String key, Object value) {
+        return query(new Document(key, value));
+    }
+
+    public List<T> query(Bson filter) {
+        return dtoCollection.find(filter)
+                .into(new ArrayList<>());
+    }
+
+    // Only the projected fields of each match, the DTOs are marked partial and can't be
+    // put back. Saves transfer and decoding on reads that need a few fields.
+    public List<T> query(Bson filter, Bson projection) {
+        return dtoCollection.find(filter)
+                .projection(projection)
+                .map(dto -> {
+                    dto.setPartial(true);
+                    return dto;
+                })
+                .into(new ArrayList<>());
+    }
+
+    // at most limit matches in sort order
+    public List<T> query(Bson filter, Bson sort, int limit) {
+        return dtoCollection.find(filter)
+                .sort(sort)
+                .limit(limit)
+                .into(new ArrayList<>());
+    }
+
+    // Matches are read from the server batchSize documents at a time (0 lets the server
+    // pick) as the stream is consumed, instead of all at once. A null projection returns
+    // whole documents. The stream holds a server cursor until it is closed, so close it
+    // or hand it to a StreamedData, whose response closes it.
+    public Stream<T> stream(Bson filter, Bson projection, int batchSize) {
+        FindIterable<T> find = dtoCollection.find(filter).batchSize(batchSize);
+        if (projection != null) {
+            find = find.projection(projection);
+        }
+        MongoCursor<T> cursor = find.iterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(cursor::close)
+                .map(dto -> {
+                    dto.setPartial(projection != null);
+                    return dto;
+                });
+    }
+
+    public void put(T dto) {
+        if (dto.isPartial()) {
+            throw new IllegalArgumentException("A partially loaded "
+                    + dto.getClass().getSimpleName() + " would overwrite the fields it lacks");
+        }
+        if (dto.getUniqueId() == null) {
+            // the codec gives the dto its generated _id before it is sent
+            dtoCollection.insertOne(dto);
+        } else {
+            dtoCollection.replaceOne(dto.getObjectId(), dto);
+        }
+    }
+
+    // a batch of writes sent together, see BulkWrite
+    public BulkWrite<T> bulk() {
+        return new BulkWrite<>(dtoCollection);
+    }
+
+    // Puts every dto in as few round trips as possible. Unordered, so one failure doesn't
+    // hold back the rest, the results say which went through.
+    public List<BulkWrite.ItemResult> putAll(List<T> dtos) {
+        BulkWrite<T> bulk = bulk().ordered(false);
+        dtos.forEach(bulk::put);
+        return bulk.execute();
+    }
+
+    public List<BulkWrite.ItemResult> deleteAll(List<String> uniqueIds) {
+        BulkWrite<T> bulk = bulk().ordered(false);
+        uniqueIds.forEach(bulk::delete);
+        return bulk.execute();
+    }
+
+    // Applies update to the first match in place, a single round trip that leaves the
+    // other fields alone. False when nothing matched.
+    public boolean updateOne(Bson filter, Bson update) {
+        return collection.updateOne(filter, update).getMatchedCount() > 0;
+    }
+
+    // Applies update to the first match and returns the document as it is afterwards,
+    // null when nothing matched. With upsert a missing document is created from the
+    // filter's equality fields plus the update.
+    public T findOneAndUpdate(Bson filter, Bson update, boolean upsert) {
+        return dtoCollection.findOneAndUpdate(filter, update,
+                new FindOneAndUpdateOptions().upsert(upsert).returnDocument(ReturnDocument.AFTER));
+    }
+
+    public void delete(String uniqueId) {
+        collection.deleteOne(new Document("_id", new org.bson.types.ObjectId(uniqueId)));
+    }
+}
@@ -0,0 +1,170 @@
+package dao;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import dto.BaseDto;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Puts, deletes and updates collected and sent as bulkWrite calls of batchSize
+// operations each, instead of a round trip per operation. Ordered, the default, stops
+// at the first failure and reports the rest as skipped. Unordered lets the server run
+// every operation and reports each failure on its own. Results come back in the order
+// the operations were added.
+public class BulkWrite<T extends BaseDto> {
+
+    public enum Status {
+        WRITTEN,
+        FAILED,
+        // an earlier failure stopped an ordered batch
+        SKIPPED
+    }
+
+    // error is null unless FAILED
+    public record ItemResult(Status status, String error) {
+
+        public boolean isWritten() {
+            return status == Status.WRITTEN;
+        }
+    }
+
+    private static final ItemResult WRITTEN = new ItemResult(Status.WRITTEN, null);
+    private static final ItemResult SKIPPED = new ItemResult(Status.SKIPPED, null);
+
+    // encodes the dtos through their DtoCodec
+    private final MongoCollection<T> collection;
+    private final List<WriteModel<T>> operations = new ArrayList<>();
+    // the dto of each insert, which gives its id back unless written, null for other
+    // operations
+    private final List<T> inserted = new ArrayList<>();
+    private boolean ordered = true;
+    private int batchSize = 1000;
+
+    BulkWrite(MongoCollection<T> collection) {
+        this.collection = collection;
+    }
+
+    // inserts a new dto, replaces one that has a uniqueId, like BaseDao.put
+    public BulkWrite<T> put(T dto) {
+        if (dto.isPartial()) {
+            throw new IllegalArgumentException("A partially loaded "
+                    + dto.getClass().getSimpleName() + " would overwrite the fields it lacks");
+        }
+        if (dto.getUniqueId() == null) {
+            // assigned here so the dto learns its id without reading it back
+            dto.setUniqueId(new ObjectId().toHexString());
+            operations.add(new InsertOneModel<>(dto));
+            inserted.add(dto);
+        } else {
+            operations.add(new ReplaceOneModel<>(dto.getObjectId(), dto));
+            inserted.add(null);
+        }
+        return this;
+    }
+
+    public BulkWrite<T> delete(String uniqueId) {
+        operations.add(new DeleteOneModel<>(new Document("_id", new ObjectId(uniqueId))));
+        inserted.add(null);
+        return this;
+    }
+
+    public BulkWrite<T> update(Bson filter, Bson update) {
+        operations.add(new UpdateOneModel<>(filter, update));
+        inserted.add(null);
+        return this;
+    }
+
+    public BulkWrite<T> ordered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    public BulkWrite<T> batchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    // one result per operation, in the order they were added
+    public List<ItemResult> execute() {
+        List<ItemResult> results = new ArrayList<>(Collections.nCopies(operations.size(), SKIPPED));
+        var options = new BulkWriteOptions().ordered(ordered);
+        try {
+            for (int from = 0; from < operations.size(); from += batchSize) {
+                int to = Math.min(operations.size(), from + batchSize);
+                try {
+                    collection.bulkWrite(operations.subList(from, to), options);
+                    written(results, from, to);
+                } catch (MongoBulkWriteException e) {
+                    if (!failed(results, from, to, e)) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            // a dto that wasn't inserted is still new, so putting it again inserts it, also
+            // when the batch failed with something other than a bulk write error
+            for (int i = 0; i < inserted.size(); i++) {
+                if (inserted.get(i) != null && !results.get(i).isWritten()) {
+                    inserted.get(i).setUniqueId(null);
+                }
+            }
+        }
+        return results;
+    }
+
+    // Records the failures of the batch in [from, to), false when an ordered write has to
+    // stop. A write concern error fails the whole batch like in WriteBehindBuffer, what
+    // was applied wasn't acknowledged as durable.
+    private boolean failed(List<ItemResult> results, int from, int to,
+                           MongoBulkWriteException e) {
+        List<BulkWriteError> errors = e.getWriteErrors();
+        for (BulkWriteError error : errors) {
+            results.set(from + error.getIndex(), new ItemResult(Status.FAILED, error.getMessage()));
+        }
+        if (e.getWriteConcernError() != null) {
+            var failure = new ItemResult(Status.FAILED, e.getWriteConcernError().getMessage());
+            for (int i = from; i < to; i++) {
+                if (results.get(i).status() != Status.FAILED) {
+                    results.set(i, failure);
+                }
+            }
+            return !ordered;
+        }
+        if (ordered) {
+            // everything before the failure went through, nothing after it ran
+            written(results, from, errors.isEmpty() ? to : from + errors.get(0).getIndex());
+            return false;
+        }
+        written(results, from, to);
+        return true;
+    }
+
+    // marks the operations in [from, to) that haven't failed as written
+    private void written(List<ItemResult> results, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (results.get(i).status() == Status.FAILED) {
+                continue;
+            }
+            results.set(i, WRITTEN);
+        }
+    }
+}
@@ -1,40 +1,66 @@
-package dao;
-
-import com.mongodb.client.MongoCollection;
-import dto.ConversationDto;
-import org.bson.Document;
-
-import java.util.function.Supplier;
-
-// TODO fill this out
-public class ConversationDao extends BaseDao<ConversationDto> {
-
-    private static ConversationDao instance;
-    private static Supplier<ConversationDao> instanceSupplier = () -> {
-        return new ConversationDao(MongoConnection.getCollection("ConversationDao"));
-    };
-
-    private ConversationDao(MongoCollection<Document> collection) {
-        super(collection);
-    }
-
-    public static ConversationDao getInstance() {
-        if (instance != null) {
-            return instance;
-        }
-        instance = instanceSupplier.get();
-        return instance;
-    }
-
-    public static void setInstanceSupplier(Supplier<ConversationDao> instanceSupplier){
-        ConversationDao.instanceSupplier = instanceSupplier;
-    }
-
-    @Override
-    Supplier<ConversationDto> getFromDocument(Document document) {
-        var auth = new ConversationDto();
-        auth.fromDocument(document);
-        return () -> auth;
-    }
-
-}
+package dao;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import dto.ConversationDto;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.function.Supplier;
+
+// TODO fill this out
+public class ConversationDao extends BaseDao<ConversationDto> {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    // volatile for the double-checked getInstance, requests run on many threads
+    private static volatile ConversationDao instance;
+    private static Supplier<ConversationDao> instanceSupplier = () -> {
+        return new ConversationDao(MongoConnection.getCollection("ConversationDao"));
+    };
+
+    private ConversationDao(MongoCollection<Document> collection) {
+        super(collection, ConversationDto.class);
+    }
+
+    public static ConversationDao getInstance() {
+        ConversationDao dao = instance;
+        if (dao == null) {
+            synchronized (ConversationDao.class) {
+                dao = instance;
+                if (dao == null) {
+                    dao = instanceSupplier.get();
+                    instance = dao;
+                }
+            }
+        }
+        return dao;
+    }
+
+    public static synchronized void setInstanceSupplier(Supplier<ConversationDao> instanceSupplier){
+        ConversationDao.instanceSupplier = instanceSupplier;
+        instance = null;
+    }
+
+    // Counts one more message from fromId to toId and returns the conversation after it,
+    // creating it on the first message, all in one round trip. The unique
+    // conversationId index keeps concurrent first messages to a single document: the
+    // upsert that loses the race fails on the index and is retried as an update.
+    public ConversationDto recordMessage(String fromId, String toId) {
+        Bson filter = Filters.eq("conversationId", ConversationDto.makeUniqueId(fromId, toId));
+        Bson update = Updates.combine(
+                Updates.inc("messageCount", 1),
+                Updates.setOnInsert("fromId", fromId),
+                Updates.setOnInsert("toId", toId));
+        try {
+            return findOneAndUpdate(filter, update, true);
+        } catch (MongoCommandException e) {
+            if (e.getErrorCode() != DUPLICATE_KEY) {
+                throw e;
+            }
+            return findOneAndUpdate(filter, update, true);
+        }
+    }
+}
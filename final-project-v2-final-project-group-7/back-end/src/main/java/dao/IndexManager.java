@@ -0,0 +1,96 @@
+package dao;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The indexes behind every dao query, created at startup when missing. Indexes are
+// matched by name, so running it again is cheap and a changed definition shows up as a
+// mismatch in the log instead of being silently rebuilt. A failed build, say a unique
+// index over duplicates already stored, is logged and the rest still get created.
+public class IndexManager {
+
+    // builds taking longer than this are reported
+    private static final long SLOW_BUILD_MS = 1000;
+
+    public static final List<IndexSpec> INDEXES = List.of(
+            new IndexSpec("UserDao", Indexes.ascending("userName"),
+                    new IndexOptions().name("userName_unique").unique(true)),
+            new IndexSpec("AuthDao", Indexes.ascending("hash"),
+                    new IndexOptions().name("hash_unique").unique(true)),
+            // sessions are dropped by Mongo once expiresAt has passed
+            new IndexSpec("AuthDao", Indexes.ascending("expiresAt"),
+                    new IndexOptions().name("expiresAt_ttl").expireAfter(0L, TimeUnit.SECONDS)),
+            new IndexSpec("MessageDao", Indexes.ascending("conversationId", "timestamp", "_id"),
+                    new IndexOptions().name("conversationId_timestamp_id")),
+            new IndexSpec("ConversationDao", Indexes.ascending("conversationId"),
+                    new IndexOptions().name("conversationId_unique").unique(true)),
+            new IndexSpec("ConversationDao", Indexes.ascending("fromId"),
+                    new IndexOptions().name("fromId")),
+            new IndexSpec("ConversationDao", Indexes.ascending("toId"),
+                    new IndexOptions().name("toId")),
+            new IndexSpec("friendships", Indexes.ascending("userId", "friendId"),
+                    new IndexOptions().name("userId_friendId_unique").unique(true)),
+            new IndexSpec("friendships", Indexes.ascending("userId", "status"),
+                    new IndexOptions().name("userId_status")));
+
+    public record IndexSpec(String collection, Bson keys, IndexOptions options) {
+    }
+
+    // The names of the indexes that had to be created. Losing the connection ends the
+    // run with the driver's exception.
+    public static List<String> ensureIndexes(MongoDatabase database) {
+        List<String> created = new ArrayList<>();
+        for (IndexSpec spec : INDEXES) {
+            MongoCollection<Document> collection = database.getCollection(spec.collection());
+            String name = spec.options().getName();
+            try {
+                Document existing = findIndex(collection, name);
+                if (existing != null) {
+                    if (!keysOf(existing.get("key", Document.class)).equals(keysOf(spec.keys()))) {
+                        System.out.println("Index " + spec.collection() + "." + name
+                                + " exists with other keys " + existing.get("key"));
+                    }
+                    continue;
+                }
+                System.out.println("Index " + spec.collection() + "." + name
+                        + " is missing, building it");
+                long start = System.nanoTime();
+                collection.createIndex(spec.keys(), spec.options());
+                long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (tookMs > SLOW_BUILD_MS) {
+                    System.out.println("Index " + spec.collection() + "." + name
+                            + " took " + tookMs + " ms to build");
+                }
+                created.add(name);
+            } catch (MongoCommandException e) {
+                System.out.println("Index " + spec.collection() + "." + name
+                        + " could not be built: " + e.getMessage());
+            }
+        }
+        return created;
+    }
+
+    private static BsonDocument keysOf(Bson keys) {
+        return keys.toBsonDocument(Document.class, MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    private static Document findIndex(MongoCollection<Document> collection, String name) {
+        for (Document index : collection.listIndexes()) {
+            if (name.equals(index.getString("name"))) {
+                return index;
+            }
+        }
+        return null;
+    }
+}
@@ -1,40 +1,164 @@
-package dao;
-
-import com.mongodb.client.MongoCollection;
-import dto.MessageDto;
-import org.bson.Document;
-
-import java.util.function.Supplier;
-
-// TODO fill this out
-public class MessageDao extends BaseDao<MessageDto> {
-
-    private static MessageDao instance;
-    private static Supplier<MessageDao> instanceSupplier = () -> {
-        return new MessageDao(MongoConnection.getCollection("MessageDao"));
-    };
-
-    private MessageDao(MongoCollection<Document> collection) {
-        super(collection);
-    }
-
-    public static MessageDao getInstance() {
-        if (instance != null) {
-            return instance;
-        }
-        instance = instanceSupplier.get();
-        return instance;
-    }
-
-    public static void setInstanceSupplier(Supplier<MessageDao> instanceSupplier){
-        MessageDao.instanceSupplier = instanceSupplier;
-    }
-
-    @Override
-    Supplier<MessageDto> getFromDocument(Document document) {
-        var auth = new MessageDto();
-        auth.fromDocument(document);
-        return () -> auth;
-    }
-
-}
+package dao;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import dto.MessageDto;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import server.ServerConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// TODO fill this out
+public class MessageDao extends BaseDao<MessageDto> {
+
+    private static final int STREAM_BATCH_SIZE = 256;
+
+    // volatile for the double-checked getInstance, requests run on many threads
+    private static volatile MessageDao instance;
+    private static Supplier<MessageDao> instanceSupplier = () -> {
+        var dao = new MessageDao(MongoConnection.getCollection("MessageDao"));
+        if (Boolean.parseBoolean(ServerConfig.getString("db.messageWriteBehind", "false"))) {
+            dao.enableWriteBehind(ServerConfig.getInt("db.messageBatchSize", 128),
+                    ServerConfig.getInt("db.messageMaxDelayMs", 2),
+                    ServerConfig.getInt("db.messageQueueSize", 4096));
+        }
+        return dao;
+    };
+
+    // null unless new messages are group committed
+    private WriteBehindBuffer<MessageDto> writeBehind;
+
+    private MessageDao(MongoCollection<Document> collection) {
+        super(collection, MessageDto.class);
+    }
+
+    public static MessageDao getInstance() {
+        MessageDao dao = instance;
+        if (dao == null) {
+            synchronized (MessageDao.class) {
+                dao = instance;
+                if (dao == null) {
+                    dao = instanceSupplier.get();
+                    instance = dao;
+                }
+            }
+        }
+        return dao;
+    }
+
+    public static synchronized void setInstanceSupplier(Supplier<MessageDao> instanceSupplier){
+        MessageDao.instanceSupplier = instanceSupplier;
+        instance = null;
+    }
+
+    // Queues new messages for insertMany batches of up to batchSize, sent once full or
+    // maxDelayMs after the oldest was queued. put still returns only after its message
+    // is written, it just shares the round trip with the messages around it.
+    public void enableWriteBehind(int batchSize, int maxDelayMs, int queueSize) {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+        writeBehind = new WriteBehindBuffer<>(dtoCollection, batchSize, maxDelayMs, queueSize);
+    }
+
+    // A new message, completing once it is written. With write-behind the future waits for
+    // the batch it went into, otherwise the insert is done before this returns.
+    public CompletableFuture<Void> putAsync(MessageDto message) {
+        if (writeBehind == null || message.getUniqueId() != null || message.isPartial()) {
+            try {
+                put(message);
+                return CompletableFuture.completedFuture(null);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        // the codec gives the message its generated _id before the batch is sent
+        return writeBehind.insert(message);
+    }
+
+    @Override
+    public void put(MessageDto message) {
+        if (writeBehind == null || message.getUniqueId() != null || message.isPartial()) {
+            super.put(message);
+            return;
+        }
+        try {
+            putAsync(message).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // the whole conversation, read from the database while the stream is consumed
+    public Stream<MessageDto> streamConversation(String conversationId) {
+        return stream(Filters.eq("conversationId", conversationId), null, STREAM_BATCH_SIZE);
+    }
+
+    // Messages of the conversation newer than the cursor, which is either a message id
+    // or an epoch millisecond timestamp. Ids are compared as ObjectIds, which grow
+    // with the time they were created.
+    public List<MessageDto> querySince(String conversationId, String since) {
+        Bson newer = ObjectId.isValid(since)
+                ? Filters.gt("_id", new ObjectId(since))
+                : Filters.gt("timestamp", Long.parseLong(since));
+        return query(Filters.and(Filters.eq("conversationId", conversationId), newer));
+    }
+
+    // One page of the conversation, oldest first. Pages are cut on (timestamp, _id), which
+    // the conversationId_timestamp_id index serves directly. With after the page starts
+    // right after that cursor, otherwise it ends right before before, or with the latest
+    // message when that is null too. nextCursor goes on in the same direction and is null
+    // once there is nothing more. A malformed cursor is an IllegalArgumentException.
+    public Page queryPage(String conversationId, String before, String after, int limit) {
+        boolean forward = after != null;
+        String cursor = forward ? after : before;
+        Bson filter = Filters.eq("conversationId", conversationId);
+        if (cursor != null) {
+            int split = cursor.indexOf('_');
+            if (split < 0 || !ObjectId.isValid(cursor.substring(split + 1))) {
+                throw new IllegalArgumentException("Bad cursor " + cursor);
+            }
+            long timestamp = Long.parseLong(cursor.substring(0, split));
+            ObjectId id = new ObjectId(cursor.substring(split + 1));
+            filter = Filters.and(filter, forward
+                    ? Filters.or(Filters.gt("timestamp", timestamp), Filters.and(
+                            Filters.eq("timestamp", timestamp), Filters.gt("_id", id)))
+                    : Filters.or(Filters.lt("timestamp", timestamp), Filters.and(
+                            Filters.eq("timestamp", timestamp), Filters.lt("_id", id))));
+        }
+        Bson sort = forward
+                ? Sorts.ascending("timestamp", "_id")
+                : Sorts.descending("timestamp", "_id");
+        // one extra tells whether another page follows
+        List<MessageDto> messages = new ArrayList<>(query(filter, sort, limit + 1));
+        String nextCursor = null;
+        if (messages.size() > limit) {
+            messages.remove(limit);
+            nextCursor = cursorOf(messages.get(limit - 1));
+        }
+        if (!forward) {
+            Collections.reverse(messages);
+        }
+        return new Page(messages, nextCursor);
+    }
+
+    public static String cursorOf(MessageDto message) {
+        long timestamp = message.getTimestamp() == null ? 0 : message.getTimestamp();
+        return timestamp + "_" + message.getUniqueId();
+    }
+
+    public record Page(List<MessageDto> messages, String nextCursor) {
+    }
+}
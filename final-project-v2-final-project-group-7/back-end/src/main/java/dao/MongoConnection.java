@@ -1,29 +1,81 @@
-package dao;
-
-import com.mongodb.MongoClient;
-import com.mongodb.client.MongoCollection;
-import com.mongodb.client.MongoDatabase;
-import org.bson.Document;
-
-import java.util.function.Supplier;
-
-public class MongoConnection {
-
-    private static MongoClient mongoClient;
-
-    private static Supplier<MongoDatabase> clientSupplier = () -> {
-        if(mongoClient == null){
-            mongoClient = new MongoClient("localhost", 27017);
-        }
-        return mongoClient.getDatabase("Homework2");
-    };
-
-    public static void setClientSupplier(Supplier<MongoDatabase> clientSupplier){
-        MongoConnection.clientSupplier = clientSupplier;
-    }
-
-    public static MongoCollection<Document> getCollection(String collectionName) {
-        return clientSupplier.get().getCollection(collectionName);
-    }
-
-}
+package dao;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import server.ServerConfig;
+
+import java.util.function.Supplier;
+
+public class MongoConnection {
+
+    private static volatile MongoClient mongoClient;
+
+    private static Supplier<MongoDatabase> clientSupplier = () -> {
+        return getClient().getDatabase(ServerConfig.getString("db.name", "Homework2"));
+    };
+
+    public static void setClientSupplier(Supplier<MongoDatabase> clientSupplier){
+        MongoConnection.clientSupplier = clientSupplier;
+    }
+
+    public static MongoDatabase getDatabase() {
+        return clientSupplier.get();
+    }
+
+    public static MongoCollection<Document> getCollection(String collectionName) {
+        return clientSupplier.get().getCollection(collectionName);
+    }
+
+    // One client for the whole server, whichever request thread gets here first builds it.
+    // Every getCollection comes through here, so once it exists this is a volatile read
+    // rather than a lock.
+    static MongoClient getClient() {
+        MongoClient client = mongoClient;
+        if (client == null) {
+            synchronized (MongoConnection.class) {
+                client = mongoClient;
+                if (client == null) {
+                    client = new MongoClient(new ServerAddress(
+                            ServerConfig.getString("db.host", "localhost"),
+                            ServerConfig.getInt("db.port", 27017)), loadOptions());
+                    mongoClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    // Pool and timeouts from db.* properties or their environment variables, see
+    // ServerConfig.getString, with the driver's defaults. The pool should be about as large
+    // as the number of requests served at once. Callers past maxPoolSize wait up to
+    // maxWaitMs.
+    public static MongoClientOptions loadOptions() {
+        return MongoClientOptions.builder()
+                .applicationName("chat-server")
+                .minConnectionsPerHost(ServerConfig.getInt("db.minPoolSize", 0))
+                .connectionsPerHost(ServerConfig.getInt("db.maxPoolSize", 100))
+                .maxWaitTime(ServerConfig.getInt("db.maxWaitMs", 120000))
+                .maxConnectionIdleTime(ServerConfig.getInt("db.maxConnectionIdleMs", 0))
+                .connectTimeout(ServerConfig.getInt("db.connectTimeoutMs", 10000))
+                .socketTimeout(ServerConfig.getInt("db.socketTimeoutMs", 0))
+                .serverSelectionTimeout(ServerConfig.getInt("db.serverSelectionTimeoutMs", 30000))
+                .build();
+    }
+
+    // Connects now instead of on the first request, so that request doesn't pay for server
+    // selection and the handshake. minPoolSize connections are opened in the background
+    // by the pool once the server is found. Off with db.warmUp=false.
+    public static void warmUp() {
+        if (!Boolean.parseBoolean(ServerConfig.getString("db.warmUp", "true"))) {
+            return;
+        }
+        long start = System.nanoTime();
+        getDatabase().runCommand(new Document("ping", 1));
+        System.out.println("Connected to mongo in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
@@ -1,39 +1,53 @@
-package dao;
-
-import com.mongodb.client.MongoCollection;
-import dto.UserDto;
-import org.bson.Document;
-
-import java.util.function.Supplier;
-
-// TODO fill this out
-public class UserDao extends BaseDao<UserDto> {
-
-    private static UserDao instance;
-    private static Supplier<UserDao> instanceSupplier = () -> {
-        return new UserDao(MongoConnection.getCollection("UserDao"));
-    };
-
-    private UserDao(MongoCollection<Document> collection) {
-        super(collection);
-    }
-
-    public static UserDao getInstance() {
-        if (instance != null) {
-            return instance;
-        }
-        instance = instanceSupplier.get();
-        return instance;
-    }
-
-    public static void setInstanceSupplier(Supplier<UserDao> instanceSupplier){
-        UserDao.instanceSupplier = instanceSupplier;
-    }
-
-    @Override
-    Supplier<UserDto> getFromDocument(Document document) {
-        var auth = new UserDto();
-        auth.fromDocument(document);
-        return () -> auth;
-    }
-}
+package dao;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import dto.UserDto;
+import org.bson.Document;
+
+import java.util.function.Supplier;
+
+// TODO fill this out
+public class UserDao extends BaseDao<UserDto> {
+
+    // volatile for the double-checked getInstance, requests run on many threads
+    private static volatile UserDao instance;
+    private static Supplier<UserDao> instanceSupplier = () -> {
+        return new UserDao(MongoConnection.getCollection("UserDao"));
+    };
+
+    private UserDao(MongoCollection<Document> collection) {
+        super(collection, UserDto.class);
+    }
+
+    public static UserDao getInstance() {
+        UserDao dao = instance;
+        if (dao == null) {
+            synchronized (UserDao.class) {
+                dao = instance;
+                if (dao == null) {
+                    dao = instanceSupplier.get();
+                    instance = dao;
+                }
+            }
+        }
+        return dao;
+    }
+
+    public static synchronized void setInstanceSupplier(Supplier<UserDao> instanceSupplier){
+        UserDao.instanceSupplier = instanceSupplier;
+        instance = null;
+    }
+
+    // Adds delta to the user's sent or received counter in place, so concurrent sends
+    // don't lose counts. False when there is no such user.
+    public boolean addMessagesSent(String userName, int delta) {
+        return updateOne(Filters.eq("userName", userName), Updates.inc("messagesSent", delta));
+    }
+
+    public boolean addMessagesReceived(String userName, int delta) {
+        return updateOne(Filters.eq("userName", userName),
+                Updates.inc("messagesReceived", delta));
+    }
+}
@@ -0,0 +1,137 @@
+package dao;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Group commit for inserts. Documents from many callers queue up and one thread writes
+// them together with insertMany once batchSize are waiting or the oldest has waited
+// maxDelayMs, whichever comes first. Each caller gets a future that completes when Mongo
+// acknowledged its document, so a response still waits for its own write. The queue is
+// bounded, a caller finding it full writes its document itself. The collection's codec
+// encodes the documents, and gives a DTO its _id as it is sent.
+class WriteBehindBuffer<T> implements AutoCloseable {
+
+    private record Pending<T>(T document, long queuedAt, CompletableFuture<Void> written) {
+    }
+
+    private final MongoCollection<T> collection;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final int capacity;
+    private final ConcurrentLinkedQueue<Pending<T>> queue = new ConcurrentLinkedQueue<>();
+    // reserved slots, raised before an offer and lowered after a poll
+    private final AtomicInteger size = new AtomicInteger();
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    WriteBehindBuffer(MongoCollection<T> collection, int batchSize, long maxDelayMs,
+                      int capacity) {
+        this.collection = collection;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.capacity = capacity;
+        this.flusher = Thread.ofPlatform().daemon().name("write-behind-"
+                + collection.getNamespace()).start(this::run);
+    }
+
+    CompletableFuture<Void> insert(T document) {
+        int queued = size.incrementAndGet();
+        if (closed || queued > capacity) {
+            size.decrementAndGet();
+            return insertNow(document);
+        }
+        var pending = new Pending<>(document, System.nanoTime(), new CompletableFuture<>());
+        queue.offer(pending);
+        // the flusher sleeps until the first document or a full batch
+        if (queued == 1 || queued >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+        return pending.written();
+    }
+
+    // stops taking documents and returns once everything queued is written
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Void> insertNow(T document) {
+        try {
+            collection.insertOne(document);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void run() {
+        List<Pending<T>> batch = new ArrayList<>(batchSize);
+        while (!closed || size.get() > 0) {
+            Pending<T> oldest = queue.peek();
+            if (oldest == null) {
+                // empty, or a slot is reserved and its offer is a moment away
+                if (size.get() == 0) {
+                    LockSupport.park(this);
+                } else {
+                    Thread.onSpinWait();
+                }
+                continue;
+            }
+            long wait = oldest.queuedAt() + maxDelayNanos - System.nanoTime();
+            if (!closed && size.get() < batchSize && wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            Pending<T> pending;
+            while (batch.size() < batchSize && (pending = queue.poll()) != null) {
+                size.decrementAndGet();
+                batch.add(pending);
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<Pending<T>> batch) {
+        List<T> documents = new ArrayList<>(batch.size());
+        for (Pending<T> pending : batch) {
+            documents.add(pending.document());
+        }
+        try {
+            collection.insertMany(documents, new InsertManyOptions().ordered(false));
+            batch.forEach(pending -> pending.written().complete(null));
+        } catch (MongoBulkWriteException e) {
+            // unordered, so only the documents named in the errors are missing
+            for (BulkWriteError error : e.getWriteErrors()) {
+                batch.get(error.getIndex()).written().completeExceptionally(
+                        new MongoException(error.getCode(), error.getMessage()));
+            }
+            if (e.getWriteConcernError() != null) {
+                // the rest may be stored but weren't acknowledged as durable, so none of
+                // them count as written
+                batch.forEach(pending -> pending.written().completeExceptionally(e));
+            } else {
+                batch.forEach(pending -> pending.written().complete(null));
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> pending.written().completeExceptionally(e));
+        }
+    }
+}
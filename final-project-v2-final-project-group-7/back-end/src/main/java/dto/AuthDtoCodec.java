@@ -0,0 +1,44 @@
+package dto;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+
+public class AuthDtoCodec extends DtoCodec<AuthDto> {
+
+    public AuthDtoCodec() {
+        super(AuthDto.class);
+    }
+
+    @Override
+    AuthDto newDto() {
+        return new AuthDto();
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, AuthDto dto) {
+        writeString(writer, "userName", dto.getUserName());
+        writeLong(writer, "expireTime", dto.getExpireTime());
+        writeString(writer, "hash", dto.getHash());
+        if (dto.getExpireTime() != null) {
+            // a Date copy of expireTime for the TTL index, Mongo only expires on dates
+            writer.writeDateTime("expiresAt", dto.getExpireTime() * 1000);
+        }
+    }
+
+    @Override
+    boolean decodeField(String name, BsonReader reader, AuthDto dto) {
+        switch (name) {
+            case "userName":
+                dto.setUserName(readString(reader));
+                return true;
+            case "expireTime":
+                dto.setExpireTime(readLong(reader));
+                return true;
+            case "hash":
+                dto.setHash(readString(reader));
+                return true;
+            default:
+                return false;
+        }
+    }
+}
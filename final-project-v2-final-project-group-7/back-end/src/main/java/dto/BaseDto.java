@@ -1,42 +1,65 @@
-package dto;
-
-import org.bson.Document;
-import org.bson.types.ObjectId;
-
-public abstract class BaseDto {
-
-    protected String uniqueId;
-
-    public BaseDto(String uniqueId) {
-        this.uniqueId = uniqueId;
-    }
-
-    public BaseDto() {
-    }
-
-    public BaseDto(Document document){
-        fromDocument(document);
-    }
-
-    abstract void fromDocument(Document document);
-
-    public String getUniqueId() {
-        return uniqueId;
-    }
-
-    public abstract Document toDocument();
-
-    public void loadUniqueId(Document document) {
-        if (document.getObjectId("_id") != null) {
-            uniqueId = document.getObjectId("_id").toHexString();
-        }
-    }
-
-    public void setUniqueId(String uniqueId) {
-        this.uniqueId = uniqueId;
-    }
-
-    public Document getObjectId() {
-        return new Document("_id", new ObjectId(uniqueId));
-    }
+package dto;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+public abstract class BaseDto {
+
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec();
+
+    protected String uniqueId;
+    // loaded with a projection, so fields left out only hold their defaults
+    private boolean partial;
+
+    public BaseDto(String uniqueId) {
+        this.uniqueId = uniqueId;
+    }
+
+    public BaseDto() {
+    }
+
+    public String getUniqueId() {
+        return uniqueId;
+    }
+
+    // what the DtoCodec writes, with the _id once the DTO has one
+    public Document toDocument() {
+        var encoded = new BsonDocument();
+        codec().encode(new BsonDocumentWriter(encoded), this, EncoderContext.builder().build());
+        return DOCUMENT_CODEC.decode(new BsonDocumentReader(encoded),
+                DecoderContext.builder().build());
+    }
+
+    // read by the DtoCodec, fields the document lacks keep their values
+    public void fromDocument(Document document) {
+        codec().decodeInto(new BsonDocumentReader(
+                document.toBsonDocument(Document.class, DtoCodecs.REGISTRY)), this);
+    }
+
+    public void setUniqueId(String uniqueId) {
+        this.uniqueId = uniqueId;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
+
+    public Document getObjectId() {
+        return new Document("_id", new ObjectId(uniqueId));
+    }
+
+    @SuppressWarnings("unchecked")
+    private DtoCodec<BaseDto> codec() {
+        return (DtoCodec<BaseDto>) DtoCodecs.REGISTRY.get(getClass());
+    }
 }
\ No newline at end of file
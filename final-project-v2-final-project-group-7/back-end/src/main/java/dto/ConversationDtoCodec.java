@@ -0,0 +1,44 @@
+package dto;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+
+public class ConversationDtoCodec extends DtoCodec<ConversationDto> {
+
+    public ConversationDtoCodec() {
+        super(ConversationDto.class);
+    }
+
+    @Override
+    ConversationDto newDto() {
+        return new ConversationDto();
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, ConversationDto dto) {
+        writeString(writer, "fromId", dto.getFromId());
+        writeString(writer, "toId", dto.getToId());
+        writeInt(writer, "messageCount", dto.getMessageCount());
+        writeString(writer, "conversationId", dto.getConversationId());
+    }
+
+    @Override
+    boolean decodeField(String name, BsonReader reader, ConversationDto dto) {
+        switch (name) {
+            case "fromId":
+                dto.setFromId(readString(reader));
+                return true;
+            case "toId":
+                dto.setToId(readString(reader));
+                return true;
+            case "messageCount":
+                dto.setMessageCount(readInt(reader, 0));
+                return true;
+            case "conversationId":
+                dto.setConversationId(readString(reader));
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package dto;
+
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+// Reads and writes a DTO straight from and to BSON, without a Document in between. This
+// is the one mapping between a DTO and its document, BaseDto.toDocument and fromDocument
+// go through it as well. The _id is handled here, subclasses only deal with their own
+// fields. Fields a DTO doesn't know, like the ones of a newer version, are skipped.
+public abstract class DtoCodec<T extends BaseDto> implements CollectibleCodec<T> {
+
+    private final Class<T> type;
+
+    protected DtoCodec(Class<T> type) {
+        this.type = type;
+    }
+
+    abstract T newDto();
+
+    abstract void encodeFields(BsonWriter writer, T dto);
+
+    // false for fields the DTO doesn't have
+    abstract boolean decodeField(String name, BsonReader reader, T dto);
+
+    @Override
+    public void encode(BsonWriter writer, T dto, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (dto.getUniqueId() != null) {
+            writer.writeObjectId("_id", new ObjectId(dto.getUniqueId()));
+        }
+        encodeFields(writer, dto);
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public T decode(BsonReader reader, DecoderContext decoderContext) {
+        T dto = newDto();
+        decodeInto(reader, dto);
+        return dto;
+    }
+
+    // sets the fields the document has, the others keep their values
+    void decodeInto(BsonReader reader, T dto) {
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if (name.equals("_id") && reader.getCurrentBsonType() == BsonType.OBJECT_ID) {
+                dto.setUniqueId(reader.readObjectId().toHexString());
+            } else if (!decodeField(name, reader, dto)) {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+    }
+
+    @Override
+    public Class<T> getEncoderClass() {
+        return type;
+    }
+
+    // the driver calls this before an insert, so the DTO knows its id without a read back
+    @Override
+    public T generateIdIfAbsentFromDocument(T dto) {
+        if (dto.getUniqueId() == null) {
+            dto.setUniqueId(new ObjectId().toHexString());
+        }
+        return dto;
+    }
+
+    @Override
+    public boolean documentHasId(T dto) {
+        return dto.getUniqueId() != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(T dto) {
+        if (dto.getUniqueId() == null) {
+            throw new IllegalStateException("The " + type.getSimpleName() + " has no id");
+        }
+        return new BsonObjectId(new ObjectId(dto.getUniqueId()));
+    }
+
+    static void writeString(BsonWriter writer, String name, String value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeString(name, value);
+        }
+    }
+
+    static void writeInt(BsonWriter writer, String name, Integer value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeInt32(name, value);
+        }
+    }
+
+    static void writeLong(BsonWriter writer, String name, Long value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeInt64(name, value);
+        }
+    }
+
+    static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.STRING) {
+            return reader.readString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    // numbers of any width, $inc on an old document may have left a long or a double
+    static Integer readInt(BsonReader reader, Integer defaultValue) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return (int) reader.readInt64();
+            case DOUBLE:
+                return (int) reader.readDouble();
+            default:
+                reader.skipValue();
+                return defaultValue;
+        }
+    }
+
+    static Long readLong(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT64:
+                return reader.readInt64();
+            case INT32:
+                return (long) reader.readInt32();
+            case DOUBLE:
+                return (long) reader.readDouble();
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package dto;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+
+// The DTO codecs ahead of the driver's own, so collections of DTOs and of Documents
+// can share one registry.
+public final class DtoCodecs {
+
+    public static final CodecRegistry REGISTRY = CodecRegistries.fromRegistries(
+            CodecRegistries.fromCodecs(new UserDtoCodec(), new MessageDtoCodec(),
+                    new ConversationDtoCodec(), new AuthDtoCodec()),
+            MongoClientSettings.getDefaultCodecRegistry());
+
+    private DtoCodecs() {
+    }
+}
@@ -0,0 +1,51 @@
+package dto;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+
+public class MessageDtoCodec extends DtoCodec<MessageDto> {
+
+    public MessageDtoCodec() {
+        super(MessageDto.class);
+    }
+
+    @Override
+    MessageDto newDto() {
+        var dto = new MessageDto();
+        // a stored message without one has none, not the time it was read
+        dto.setTimestamp(null);
+        return dto;
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, MessageDto dto) {
+        writeString(writer, "fromId", dto.getFromId());
+        writeString(writer, "toId", dto.getToId());
+        writeString(writer, "message", dto.getMessage());
+        writeLong(writer, "timestamp", dto.getTimestamp());
+        writeString(writer, "conversationId", dto.getConversationId());
+    }
+
+    @Override
+    boolean decodeField(String name, BsonReader reader, MessageDto dto) {
+        switch (name) {
+            case "fromId":
+                dto.setFromId(readString(reader));
+                return true;
+            case "toId":
+                dto.setToId(readString(reader));
+                return true;
+            case "message":
+                dto.setMessage(readString(reader));
+                return true;
+            case "timestamp":
+                dto.setTimestamp(readLong(reader));
+                return true;
+            case "conversationId":
+                dto.setConversationId(readString(reader));
+                return true;
+            default:
+                return false;
+        }
+    }
+}
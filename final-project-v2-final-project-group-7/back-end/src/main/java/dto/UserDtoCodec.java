@@ -0,0 +1,44 @@
+package dto;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+
+public class UserDtoCodec extends DtoCodec<UserDto> {
+
+    public UserDtoCodec() {
+        super(UserDto.class);
+    }
+
+    @Override
+    UserDto newDto() {
+        return new UserDto();
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, UserDto dto) {
+        writeInt(writer, "messagesSent", dto.getMessagesSent());
+        writeInt(writer, "messagesReceived", dto.getMessagesRecieved());
+        writeString(writer, "userName", dto.getUserName());
+        writeString(writer, "password", dto.getPassword());
+    }
+
+    @Override
+    boolean decodeField(String name, BsonReader reader, UserDto dto) {
+        switch (name) {
+            case "messagesSent":
+                dto.setMessagesSent(readInt(reader, 0));
+                return true;
+            case "messagesReceived":
+                dto.setMessagesRecieved(readInt(reader, 0));
+                return true;
+            case "userName":
+                dto.setUserName(readString(reader));
+                return true;
+            case "password":
+                dto.setPassword(readString(reader));
+                return true;
+            default:
+                return false;
+        }
+    }
+}
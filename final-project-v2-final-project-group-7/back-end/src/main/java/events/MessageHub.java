@@ -0,0 +1,84 @@
+package events;
+
+import dto.MessageDto;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// In-process publish/subscribe for stored messages, keyed by user name. A message is
+// delivered to every open stream of its sender and its recipient. Each subscriber gets
+// a bounded queue, one that falls that far behind is disconnected instead of letting
+// its queue grow; the client reconnects and reloads the conversation.
+public class MessageHub {
+
+    private static MessageHub instance;
+    private static Supplier<MessageHub> instanceSupplier = () -> new MessageHub(256);
+
+    private final int queueSize;
+    private final Map<String, Set<Subscription>> subscribers = new ConcurrentHashMap<>();
+
+    public MessageHub(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    // every publisher and subscriber has to see the same hub
+    public static synchronized MessageHub getInstance() {
+        if (instance != null) {
+            return instance;
+        }
+        instance = instanceSupplier.get();
+        return instance;
+    }
+
+    public static synchronized void setInstanceSupplier(Supplier<MessageHub> instanceSupplier) {
+        MessageHub.instanceSupplier = instanceSupplier;
+        instance = null;
+    }
+
+    public Subscription subscribe(String userName) {
+        return subscribe(userName, null);
+    }
+
+    // onOverflow runs on the publishing thread when the subscriber is dropped, to unblock
+    // a reader that is stuck writing to its client
+    public Subscription subscribe(String userName, Runnable onOverflow) {
+        var subscription = new Subscription(this, userName, queueSize, onOverflow);
+        subscribers.computeIfAbsent(userName, key -> ConcurrentHashMap.newKeySet())
+                .add(subscription);
+        return subscription;
+    }
+
+    public void publish(MessageDto message) {
+        deliver(message.getFromId(), message);
+        if (message.getToId() != null && !message.getToId().equals(message.getFromId())) {
+            deliver(message.getToId(), message);
+        }
+    }
+
+    public int subscriberCount(String userName) {
+        Set<Subscription> subscriptions = subscribers.get(userName);
+        return subscriptions == null ? 0 : subscriptions.size();
+    }
+
+    void unsubscribe(Subscription subscription) {
+        subscribers.computeIfPresent(subscription.getUserName(), (key, subscriptions) -> {
+            subscriptions.remove(subscription);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+    }
+
+    private void deliver(String userName, MessageDto message) {
+        if (userName == null) {
+            return;
+        }
+        Set<Subscription> subscriptions = subscribers.get(userName);
+        if (subscriptions == null) {
+            return;
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(message);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package events;
+
+import dto.MessageDto;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// One open stream's view of the hub. Publishers never block on it: when the queue is
+// full the subscription is closed and marked as overflowed.
+public class Subscription implements AutoCloseable {
+
+    private final MessageHub hub;
+    private final String userName;
+    private final BlockingQueue<MessageDto> queue;
+    private final Runnable onOverflow;
+    private volatile boolean closed;
+    private volatile boolean overflowed;
+
+    Subscription(MessageHub hub, String userName, int queueSize, Runnable onOverflow) {
+        this.hub = hub;
+        this.userName = userName;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.onOverflow = onOverflow;
+    }
+
+    void offer(MessageDto message) {
+        if (closed) {
+            return;
+        }
+        if (!queue.offer(message)) {
+            overflowed = true;
+            close();
+            if (onOverflow != null) {
+                onOverflow.run();
+            }
+        }
+    }
+
+    // next message, null when none arrived within the timeout
+    public MessageDto poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    // next message if one is already waiting
+    public MessageDto poll() {
+        return queue.poll();
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        hub.unsubscribe(this);
+    }
+}
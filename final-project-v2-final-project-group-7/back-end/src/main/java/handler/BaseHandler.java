@@ -1,9 +1,9 @@
-package handler;
-
-import request.ParsedRequest;
-import response.ResponseBuilder;
-
-public interface BaseHandler {
-
-    ResponseBuilder handleRequest(ParsedRequest request);
-}
+package handler;
+
+import request.ParsedRequest;
+import response.ResponseBuilder;
+
+public interface BaseHandler {
+
+    ResponseBuilder handleRequest(ParsedRequest request);
+}
@@ -0,0 +1,133 @@
+package handler;
+
+import auth.AuthFilter;
+import com.google.gson.JsonParseException;
+import dto.MessageDto;
+import events.MessageHub;
+import events.Subscription;
+import request.ParsedRequest;
+import response.ResponseBuilder;
+import response.RestApiAppResponse;
+import response.StatusCodes;
+import response.StreamingBody;
+import websocket.WebSocketConnection;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+// Chat over one WebSocket instead of a request per message. The auth cookie of the
+// upgrade request picks the user. The client sends {"toId": .., "message": ..} text
+// messages, stored just like /sendMessage, and gets every message it sends or receives
+// pushed back as json. A failed send is answered with the RestApiAppResponse.
+public class ChatSocketHandler implements BaseHandler {
+
+    private static final int MAX_MESSAGE_BYTES = 64 * 1024;
+    private static final long PING_INTERVAL_MS = 30000;
+
+    @Override
+    public ResponseBuilder handleRequest(ParsedRequest request) {
+        AuthFilter.AuthResult authResult = AuthFilter.doFilter(request);
+        if (!authResult.isLoggedIn) {
+            return new ResponseBuilder().setStatus(StatusCodes.UNAUTHORIZED);
+        }
+        String key = request.getHeaderValue("Sec-WebSocket-Key");
+        String connection = request.getHeaderValue("Connection");
+        if (key == null
+                || !"websocket".equalsIgnoreCase(request.getHeaderValue("Upgrade"))
+                || connection == null || !connection.toLowerCase().contains("upgrade")
+                || !"13".equals(request.getHeaderValue("Sec-WebSocket-Version"))) {
+            return new ResponseBuilder().setStatus(StatusCodes.UPGRADE_REQUIRED)
+                    .setHeader("Upgrade", "websocket")
+                    .setHeader("Sec-WebSocket-Version", "13");
+        }
+        return new ResponseBuilder().setStatus(StatusCodes.SWITCHING_PROTOCOLS)
+                .setHeader("Upgrade", "websocket")
+                .setHeader("Connection", "Upgrade")
+                .setHeader("Sec-WebSocket-Accept", WebSocketConnection.acceptKey(key))
+                .setStreamingBody(new ChatSession(authResult.userName));
+    }
+
+    // Reads the client's messages on the connection's thread while a virtual thread
+    // pushes hub messages and pings. Outbound backpressure is the hub's bounded queue:
+    // a client that stops reading fills it and gets disconnected.
+    static class ChatSession implements StreamingBody {
+        private final String userName;
+
+        ChatSession(String userName) {
+            this.userName = userName;
+        }
+
+        @Override
+        public void stream(InputStream in, OutputStream out) throws IOException {
+            var socket = new WebSocketConnection(new BufferedInputStream(in), out,
+                    MAX_MESSAGE_BYTES);
+            try (Subscription subscription = MessageHub.getInstance()
+                    .subscribe(userName, () -> closeQuietly(in))) {
+                Thread pusher = Thread.ofVirtual()
+                        .start(() -> push(socket, subscription, in));
+                try {
+                    String text;
+                    while ((text = socket.readText()) != null) {
+                        receive(socket, text);
+                    }
+                } finally {
+                    pusher.interrupt();
+                }
+            }
+        }
+
+        private void receive(WebSocketConnection socket, String text) throws IOException {
+            MessageDto messageDto;
+            try {
+                messageDto = GsonTool.GSON.fromJson(text, MessageDto.class);
+            } catch (JsonParseException e) {
+                messageDto = null;
+            }
+            if (messageDto == null || messageDto.getToId() == null) {
+                var res = new RestApiAppResponse<>(false, null, "Malformed message");
+                socket.sendText(GsonTool.GSON.toJson(res));
+                return;
+            }
+            var res = SendMessageHandler.sendMessage(userName, messageDto);
+            if (!res.status) {
+                socket.sendText(GsonTool.GSON.toJson(res));
+            }
+        }
+
+        private void push(WebSocketConnection socket, Subscription subscription, InputStream in) {
+            long timeout = TimeUnit.MILLISECONDS.toNanos(PING_INTERVAL_MS * 2);
+            try {
+                while (!subscription.isClosed()) {
+                    MessageDto message = subscription.poll(PING_INTERVAL_MS,
+                            TimeUnit.MILLISECONDS);
+                    if (message != null) {
+                        socket.sendText(GsonTool.GSON.toJson(message));
+                    } else if (System.nanoTime() - socket.getLastReceived() > timeout) {
+                        // nothing back for two pings, the client is gone
+                        socket.close(WebSocketConnection.GOING_AWAY, "Ping timeout");
+                        closeQuietly(in);
+                        return;
+                    } else {
+                        socket.sendPing();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // the reader is done
+            } catch (IOException e) {
+                closeQuietly(in);
+            }
+        }
+
+        // closing the input closes the connection, which also ends a blocked read or write
+        private static void closeQuietly(InputStream in) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // already closed
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package handler;
 
 import dao.FriendshipDao;
+import dao.MongoConnection;
 import dao.UserDao;
 import dto.BaseDto;
 import dto.FriendDTO;
@@ -9,6 +10,7 @@ import org.bson.Document;
 import request.ParsedRequest;
 import response.ResponseBuilder;
 import response.RestApiAppResponse;
+import response.StatusCodes;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -16,9 +18,14 @@ import java.util.List;
 
 public class FriendsHandler implements BaseHandler {
 
-    private final FriendshipDao friendshipDao;
+    private volatile FriendshipDao friendshipDao;
     private final UserDao userDao; // not used yet, kept for future use
 
+    // the routed instance, the dao is created on the first request
+    public FriendsHandler() {
+        this(null, null);
+    }
+
     public FriendsHandler(FriendshipDao friendshipDao, UserDao userDao) {
         this.friendshipDao = friendshipDao;
         this.userDao = userDao;
@@ -26,40 +33,51 @@ public class FriendsHandler implements BaseHandler {
 
     @Override
     public ResponseBuilder handleRequest(ParsedRequest request) {
-        String method = request.getMethod().toUpperCase();
-        String path = request.getPath();             // e.g. /users/123/friends/456/accept
-        String[] parts = path.split("/");            // ["", "users", "123", "friends", "456", "accept"]
-
-        // Expect at least: /users/{userId}/friends
-        if (parts.length < 4 || !"users".equals(parts[1]) || !"friends".equals(parts[3])) {
-            return sendEmptyResponse(404, "Not found");
+        // bound by the router from the route templates in HandlerFactory
+        String userId = request.getPathVariable("userId");
+        String friendId = request.getPathVariable("friendId");
+        if (userId == null) {
+            return sendEmptyResponse(StatusCodes.NOT_FOUND, "Not found");
         }
 
-        switch (method) {
+        switch (request.getMethod().toUpperCase()) {
             case "GET":
                 // GET /users/{userId}/friends
-                return handleGetFriends(parts);
+                return handleGetFriends(userId);
             case "POST":
                 // POST /users/{userId}/friends/{friendId}
-                return handleSendFriendRequest(parts);
+                return handleSendFriendRequest(userId, friendId);
             case "PUT":
                 // PUT /users/{userId}/friends/{friendId}/accept
-                return handleAcceptFriendRequest(parts);
+                return handleAcceptFriendRequest(userId, friendId);
             case "DELETE":
                 // DELETE /users/{userId}/friends/{friendId}
-                return handleRemoveFriend(parts);
+                return handleRemoveFriend(userId, friendId);
             default:
-                return sendEmptyResponse(405, "Method not allowed");
+                return sendEmptyResponse(StatusCodes.METHOD_NOT_ALLOWED, "Method not allowed");
+        }
+    }
+
+    private FriendshipDao friendshipDao() {
+        FriendshipDao dao = friendshipDao;
+        if (dao == null) {
+            // a spare one from a race is harmless, the dao holds no state of its own
+            dao = new FriendshipDao(MongoConnection.getDatabase());
+            friendshipDao = dao;
         }
+        return dao;
     }
 
 
-    private ResponseBuilder handleGetFriends(String[] parts) {
-        // /users/{userId}/friends
-        String userIdString = parts[2];
-        Long userId = Long.valueOf(userIdString);
+    private ResponseBuilder handleGetFriends(String userIdString) {
+        Long userId;
+        try {
+            userId = Long.valueOf(userIdString);
+        } catch (NumberFormatException e) {
+            return sendEmptyResponse(StatusCodes.BAD_REQUEST, "userId must be a number");
+        }
 
-        List<Document> relations = friendshipDao.findByUserIdAndStatus(userIdString, "ACCEPTED");
+        List<Document> relations = friendshipDao().findByUserIdAndStatus(userIdString, "ACCEPTED");
 
         List<FriendDTO> friends = new ArrayList<>();
 
@@ -80,18 +98,16 @@ public class FriendsHandler implements BaseHandler {
         friendsListDTO.setFriends(friends);
 
         // Wrap in a list because RestApiAppResponse expects List<T>
-        return sendResponse(200, Collections.singletonList(friendsListDTO), null);
+        return sendResponse(StatusCodes.OK, Collections.singletonList(friendsListDTO), null);
     }
 
 
-    private ResponseBuilder handleSendFriendRequest(String[] parts) {
-        if (parts.length < 5) {
-            return sendEmptyResponse(400, "Missing friendId");
+    private ResponseBuilder handleSendFriendRequest(String userId, String friendId) {
+        if (friendId == null) {
+            return sendEmptyResponse(StatusCodes.BAD_REQUEST, "Missing friendId");
         }
 
-        String userId = parts[2];
-        String friendId = parts[4];
-
+        FriendshipDao friendshipDao = friendshipDao();
         Document existing = friendshipDao.findByUserIdAndFriendId(userId, friendId);
 
         if (existing == null) {
@@ -102,51 +118,47 @@ public class FriendsHandler implements BaseHandler {
             friendshipDao.insert(friendship);
         }
 
-        return sendEmptyResponse(200, null); // success, no error
+        return sendEmptyResponse(StatusCodes.OK, null); // success, no error
     }
 
 
-    private ResponseBuilder handleAcceptFriendRequest(String[] parts) {
-        if (parts.length < 6 || !"accept".equals(parts[5])) {
-            return sendEmptyResponse(400, "Invalid accept URL");
+    private ResponseBuilder handleAcceptFriendRequest(String userId, String friendId) {
+        if (friendId == null) {
+            return sendEmptyResponse(StatusCodes.BAD_REQUEST, "Invalid accept URL");
         }
 
-        String userId = parts[2];
-        String friendId = parts[4];
-
+        FriendshipDao friendshipDao = friendshipDao();
         // friendId sent request to userId
         Document incoming = friendshipDao.findByUserIdAndFriendId(friendId, userId);
 
         if (incoming == null) {
-            return sendEmptyResponse(404, "Friend request not found");
+            return sendEmptyResponse(StatusCodes.NOT_FOUND, "Friend request not found");
         }
 
         incoming.put("status", "ACCEPTED");
         friendshipDao.replace(incoming);
 
-        return sendEmptyResponse(200, null);
+        return sendEmptyResponse(StatusCodes.OK, null);
     }
 
 
-    private ResponseBuilder handleRemoveFriend(String[] parts) {
-        if (parts.length < 5) {
-            return sendEmptyResponse(400, "Missing friendId");
+    private ResponseBuilder handleRemoveFriend(String userId, String friendId) {
+        if (friendId == null) {
+            return sendEmptyResponse(StatusCodes.BAD_REQUEST, "Missing friendId");
         }
 
-        String userId = parts[2];
-        String friendId = parts[4];
-
+        FriendshipDao friendshipDao = friendshipDao();
         friendshipDao.deleteByUserIdAndFriendId(userId, friendId);
         friendshipDao.deleteByUserIdAndFriendId(friendId, userId);
 
-        return sendEmptyResponse(204, null);
+        return sendEmptyResponse(StatusCodes.NO_CONTENT, null);
     }
 
 
 
     // Generic helper when you have DTO data
     @SuppressWarnings("rawtypes")
-    private ResponseBuilder sendResponse(int statusCode, List data, String errorMessage) {
+    private ResponseBuilder sendResponse(String status, List data, String errorMessage) {
         // use raw RestApiAppResponse to avoid generic bound issues
         RestApiAppResponse body = new RestApiAppResponse(
                 errorMessage == null,  // success = no error
@@ -155,13 +167,13 @@ public class FriendsHandler implements BaseHandler {
         );
 
         return new ResponseBuilder()
-                .setStatus(String.valueOf(statusCode))
+                .setStatus(status)
                 .setHeader("Content-Type", "application/json")
                 .setBody(body);
     }
 
     // Helper for “empty body” responses (no DTOs, just status + optional error)
-    private ResponseBuilder sendEmptyResponse(int statusCode, String errorMessage) {
+    private ResponseBuilder sendEmptyResponse(String status, String errorMessage) {
         RestApiAppResponse<BaseDto> body = new RestApiAppResponse<>(
                 errorMessage == null,
                 Collections.emptyList(),
@@ -169,7 +181,7 @@ public class FriendsHandler implements BaseHandler {
         );
 
         return new ResponseBuilder()
-                .setStatus(String.valueOf(statusCode))
+                .setStatus(status)
                 .setHeader("Content-Type", "application/json")
                 .setBody(body);
     }
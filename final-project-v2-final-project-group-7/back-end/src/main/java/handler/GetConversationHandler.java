@@ -1,29 +1,133 @@
-package handler;
-
-import auth.AuthFilter;
-import dao.MessageDao;
-import request.ParsedRequest;
-import response.ResponseBuilder;
-import response.RestApiAppResponse;
-import response.StatusCodes;
-
-public class GetConversationHandler implements BaseHandler {
-
-    @Override
-    public ResponseBuilder handleRequest(ParsedRequest request) {
-
-        AuthFilter.AuthResult authResult = AuthFilter.doFilter(request);
-        if (!authResult.isLoggedIn) {
-            return new ResponseBuilder().setStatus(StatusCodes.UNAUTHORIZED);
-        }
-
-        String conversationId = request.getQueryParam("conversationId");
-        System.out.println("GetConversation - querying for conversationId: " + conversationId);
-        MessageDao messageDao = MessageDao.getInstance();
-        var messages = messageDao.query("conversationId", conversationId);
-        System.out.println("GetConversation - found " + messages.size() + " messages");
-
-        var res = new RestApiAppResponse<>(true, messages, null);
-        return new ResponseBuilder().setStatus("200 OK").setBody(res);
-    }
-}
+package handler;
+
+import auth.AuthFilter;
+import dao.MessageDao;
+import dto.MessageDto;
+import events.MessageHub;
+import events.Subscription;
+import request.ParsedRequest;
+import response.ResponseBuilder;
+import response.RestApiAppResponse;
+import response.StatusCodes;
+import response.StreamedData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class GetConversationHandler implements BaseHandler {
+
+    // longest a request may be parked waiting for a new message
+    private static final long MAX_WAIT_MS = 30000;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    @Override
+    public ResponseBuilder handleRequest(ParsedRequest request) {
+
+        AuthFilter.AuthResult authResult = AuthFilter.doFilter(request);
+        if (!authResult.isLoggedIn) {
+            return new ResponseBuilder().setStatus(StatusCodes.UNAUTHORIZED);
+        }
+
+        String conversationId = request.getQueryParam("conversationId");
+        String since = request.getQueryParam("since");
+        if (since != null) {
+            return getMessagesSince(authResult.userName, conversationId, since,
+                    request.getQueryParam("waitMs"));
+        }
+        String limit = request.getQueryParam("limit");
+        String before = request.getQueryParam("before");
+        String after = request.getQueryParam("after");
+        if (limit != null || before != null || after != null) {
+            return getPage(conversationId, limit, before, after);
+        }
+        // read from the cursor while the response is written, however long the chat is
+        var messages = new StreamedData<>(MessageDao.getInstance()
+                .streamConversation(conversationId));
+
+        var res = new RestApiAppResponse<>(true, messages, null);
+        return new ResponseBuilder().setStatus("200 OK").setBody(res);
+    }
+
+    // A page of at most limit messages around a cursor instead of the whole history, see
+    // MessageDao.queryPage. nextCursor in the response asks for the following page.
+    private ResponseBuilder getPage(String conversationId, String limit, String before,
+                                    String after) {
+        if (before != null && after != null) {
+            var res = new RestApiAppResponse<>(false, null, "Use either before or after");
+            return new ResponseBuilder().setStatus(StatusCodes.BAD_REQUEST).setBody(res);
+        }
+        try {
+            int size = limit == null ? DEFAULT_PAGE_SIZE : Integer.parseInt(limit);
+            if (size < 1) {
+                throw new IllegalArgumentException("limit must be positive");
+            }
+            MessageDao.Page page = MessageDao.getInstance().queryPage(conversationId,
+                    before, after, Math.min(size, MAX_PAGE_SIZE));
+            var res = new RestApiAppResponse<>(true, page.messages(), null, page.nextCursor());
+            return new ResponseBuilder().setStatus("200 OK").setBody(res);
+        } catch (IllegalArgumentException e) {
+            var res = new RestApiAppResponse<>(false, null,
+                    "limit must be a positive number and cursors come from nextCursor");
+            return new ResponseBuilder().setStatus(StatusCodes.BAD_REQUEST).setBody(res);
+        }
+    }
+
+    // Only the messages after since. With waitMs and nothing new yet the request is parked
+    // until a message of the conversation is stored or the wait runs out, then answers
+    // with whatever arrived, possibly nothing.
+    private ResponseBuilder getMessagesSince(String userName, String conversationId,
+                                             String since, String waitMs) {
+        long wait;
+        try {
+            wait = waitMs == null ? 0
+                    : Math.min(MAX_WAIT_MS, Math.max(0, Long.parseLong(waitMs)));
+        } catch (NumberFormatException e) {
+            var res = new RestApiAppResponse<>(false, null, "waitMs must be a number");
+            return new ResponseBuilder().setStatus(StatusCodes.BAD_REQUEST).setBody(res);
+        }
+        // subscribed before the query so a message stored in between isn't missed
+        try (Subscription subscription = wait > 0
+                ? MessageHub.getInstance().subscribe(userName)
+                : null) {
+            List<MessageDto> messages = MessageDao.getInstance()
+                    .querySince(conversationId, since);
+            if (messages.isEmpty() && subscription != null) {
+                messages = awaitMessages(subscription, conversationId, wait);
+            }
+            var res = new RestApiAppResponse<>(true, messages, null);
+            return new ResponseBuilder().setStatus("200 OK").setBody(res);
+        } catch (NumberFormatException e) {
+            var res = new RestApiAppResponse<>(false, null,
+                    "since must be a message id or a timestamp");
+            return new ResponseBuilder().setStatus(StatusCodes.BAD_REQUEST).setBody(res);
+        }
+    }
+
+    private List<MessageDto> awaitMessages(Subscription subscription, String conversationId,
+                                           long waitMs) {
+        List<MessageDto> messages = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs);
+        try {
+            while (messages.isEmpty() && !subscription.isClosed()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                MessageDto message = subscription.poll(remaining, TimeUnit.NANOSECONDS);
+                // anything else stored meanwhile goes out in the same answer
+                while (message != null) {
+                    if (message.getConversationId() != null
+                            && message.getConversationId().equals(conversationId)) {
+                        messages.add(message);
+                    }
+                    message = subscription.poll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return messages;
+    }
+}
@@ -1,9 +1,13 @@
-package handler;
-
-import com.google.gson.Gson;
-
-public class GsonTool {
-
-    public static final Gson GSON = new Gson();
-
-}
+package handler;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import response.StreamedData;
+
+public class GsonTool {
+
+    public static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(StreamedData.GSON_ADAPTER)
+            .create();
+
+}
@@ -1,28 +1,33 @@
-package handler;
-
-import request.ParsedRequest;
-
-public class HandlerFactory {
-    // routes based on the path. Add your custom handlers here
-    public static BaseHandler getHandler(ParsedRequest request) {
-        switch (request.getPath()) {
-            case "/createUser":
-                return new CreateUserHandler();
-            case "/sendMessage":
-                return new SendMessageHandler();
-            case "/getConversations":
-                return new GetConversationsHandler();
-            case "/getConversation":
-                return new GetConversationHandler();
-            case "/login":
-                return new LoginHandler();
-            case "/getUser":
-                return new GetUserHandler();
-            case "/deleteMessage":
-                return new DeleteMessageHandler();
-            default:
-                return new FallbackHandler();
-        }
-    }
-
-}
+package handler;
+
+import request.ParsedRequest;
+
+public class HandlerFactory {
+    // Routes on method + path. Add your custom handlers here. Handlers are stateless, one
+    // instance serves every request. The original routes answer any method.
+    private static final FriendsHandler FRIENDS = new FriendsHandler();
+    private static final BaseHandler FALLBACK = new FallbackHandler();
+    private static final Router ROUTES = new Router()
+            .add(Router.ANY, "/createUser", new CreateUserHandler())
+            .add(Router.ANY, "/sendMessage", new SendMessageHandler())
+            .add(Router.ANY, "/getConversations", new GetConversationsHandler())
+            .add(Router.ANY, "/getConversation", new GetConversationHandler())
+            .add(Router.ANY, "/streamConversation", new StreamConversationHandler())
+            .add(Router.ANY, "/chatSocket", new ChatSocketHandler())
+            .add(Router.ANY, "/login", new LoginHandler())
+            .add(Router.ANY, "/logout", new LogoutHandler())
+            .add(Router.ANY, "/getUser", new GetUserHandler())
+            .add(Router.ANY, "/deleteMessage", new DeleteMessageHandler())
+            .add("GET", "/users/{userId}/friends", FRIENDS)
+            .add("POST", "/users/{userId}/friends/{friendId}", FRIENDS)
+            .add("DELETE", "/users/{userId}/friends/{friendId}", FRIENDS)
+            .add("PUT", "/users/{userId}/friends/{friendId}/accept", FRIENDS);
+
+    // the handler for the request, its path variables are set on the request on the way.
+    // A known path with the wrong method gets a 405, anything else the fallback.
+    public static BaseHandler getHandler(ParsedRequest request) {
+        BaseHandler handler = ROUTES.route(request);
+        return handler != null ? handler : FALLBACK;
+    }
+
+}
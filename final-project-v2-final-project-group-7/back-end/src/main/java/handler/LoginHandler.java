@@ -1,44 +1,62 @@
-package handler;
-
-import dao.AuthDao;
-import dao.UserDao;
-import dto.AuthDto;
-import dto.UserDto;
-import org.apache.commons.codec.digest.DigestUtils;
-import request.ParsedRequest;
-import response.ResponseBuilder;
-import response.RestApiAppResponse;
-import response.StatusCodes;
-
-import java.time.Instant;
-
-// DONE
-public class LoginHandler implements BaseHandler {
-
-    @Override
-    public ResponseBuilder handleRequest(ParsedRequest request) {
-        var res = new ResponseBuilder();
-        UserDto userDto = GsonTool.GSON.fromJson(request.getBody(), UserDto.class);
-        UserDao userDao = UserDao.getInstance();
-        AuthDao authDao = AuthDao.getInstance();
-        String passwordHash = DigestUtils.sha256Hex(userDto.getPassword());
-
-        var result = userDao.query("userName", userDto.getUserName()).stream()
-                .findFirst()
-                .orElse(null);
-        if (result == null || !result.getPassword().equals(passwordHash)) {
-            res.setStatus(StatusCodes.UNAUTHORIZED);
-        } else {
-            AuthDto authDto = new AuthDto();
-            authDto.setExpireTime(Instant.now().getEpochSecond() + 60000);
-            String hash = DigestUtils.sha256Hex(authDto.getUserName() + authDto.getExpireTime());
-            authDto.setHash(hash);
-            authDto.setUserName(userDto.getUserName());
-            authDao.put(authDto);
-            res.setStatus(StatusCodes.OK);
-            res.setHeader("Set-Cookie", "auth=" + hash );
-            res.setBody(new RestApiAppResponse<>(true, null, null));
-        }
-        return res;
-    }
-}
+package handler;
+
+import auth.SessionCache;
+import auth.SessionTokens;
+import dao.AuthDao;
+import dao.UserDao;
+import dto.AuthDto;
+import dto.UserDto;
+import org.apache.commons.codec.digest.DigestUtils;
+import request.ParsedRequest;
+import response.ResponseBuilder;
+import response.RestApiAppResponse;
+import response.StatusCodes;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+
+// DONE
+public class LoginHandler implements BaseHandler {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Override
+    public ResponseBuilder handleRequest(ParsedRequest request) {
+        var res = new ResponseBuilder();
+        UserDto userDto = GsonTool.GSON.fromJson(request.getBody(), UserDto.class);
+        UserDao userDao = UserDao.getInstance();
+        String passwordHash = DigestUtils.sha256Hex(userDto.getPassword());
+
+        var result = userDao.query("userName", userDto.getUserName()).stream()
+                .findFirst()
+                .orElse(null);
+        if (result == null || !result.getPassword().equals(passwordHash)) {
+            res.setStatus(StatusCodes.UNAUTHORIZED);
+        } else {
+            SessionTokens tokens = SessionTokens.getInstance();
+            String cookie;
+            if (tokens.isEnabled()) {
+                // nothing is stored, the signed cookie is the session
+                cookie = tokens.issue(userDto.getUserName());
+            } else {
+                AuthDto authDto = new AuthDto();
+                authDto.setExpireTime(Instant.now().getEpochSecond()
+                        + SessionTokens.DEFAULT_TTL_SECONDS);
+                // random rather than derived, unique under the hash index and unguessable
+                byte[] secret = new byte[32];
+                RANDOM.nextBytes(secret);
+                String hash = DigestUtils.sha256Hex(secret);
+                authDto.setHash(hash);
+                authDto.setUserName(userDto.getUserName());
+                AuthDao.getInstance().put(authDto);
+                // the hash may have been cached as unknown
+                SessionCache.getInstance().invalidate(hash);
+                cookie = hash;
+            }
+            res.setStatus(StatusCodes.OK);
+            res.setHeader("Set-Cookie", "auth=" + cookie);
+            res.setBody(new RestApiAppResponse<>(true, null, null));
+        }
+        return res;
+    }
+}
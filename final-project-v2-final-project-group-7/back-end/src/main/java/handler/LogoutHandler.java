@@ -0,0 +1,34 @@
+package handler;
+
+import auth.SessionCache;
+import auth.SessionTokens;
+import dao.AuthDao;
+import request.ParsedRequest;
+import response.ResponseBuilder;
+import response.RestApiAppResponse;
+import response.StatusCodes;
+
+// Ends the caller's session. Revoking a token or dropping a cached session only helps
+// if something triggers it, and logging out is that trigger.
+public class LogoutHandler implements BaseHandler {
+
+    @Override
+    public ResponseBuilder handleRequest(ParsedRequest request) {
+        if (!request.getPrincipal().isLoggedIn()) {
+            return new ResponseBuilder().setStatus(StatusCodes.UNAUTHORIZED);
+        }
+        String cookie = request.getCookieValue("auth");
+        if (SessionTokens.isToken(cookie)) {
+            // nothing stored to delete, the token is refused until it would have expired
+            SessionTokens.getInstance().revoke(cookie);
+        } else {
+            AuthDao.getInstance().deleteSession(cookie);
+            // or this node would keep accepting it until the cached entry runs out
+            SessionCache.getInstance().invalidate(cookie);
+        }
+        return new ResponseBuilder()
+                .setStatus(StatusCodes.OK)
+                .setHeader("Set-Cookie", "auth=; Max-Age=0")
+                .setBody(new RestApiAppResponse<>(true, null, null));
+    }
+}
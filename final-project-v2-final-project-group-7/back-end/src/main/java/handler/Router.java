@@ -0,0 +1,141 @@
+package handler;
+
+import request.ParsedRequest;
+import response.ResponseBuilder;
+import response.StatusCodes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Method + path templates compiled into a trie of path segments. A {name} segment
+// matches any one segment and is handed to the handler as a path variable, literal
+// segments win over variables. Matching walks the path in place, one trie level per
+// segment, and only allocates the variable values of the route it finds.
+public class Router {
+
+    // registers a handler for every method
+    public static final String ANY = "*";
+
+    private final Node root = new Node();
+    private int maxVariables;
+
+    public Router add(String method, String template, BaseHandler handler) {
+        Node node = root;
+        List<String> variables = new ArrayList<>();
+        for (String segment : template.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                variables.add(segment.substring(1, segment.length() - 1));
+                if (node.variable == null) {
+                    node.variable = new Node();
+                }
+                node = node.variable;
+            } else {
+                node = node.literal(segment);
+            }
+        }
+        if (node.handlers.put(method, handler) != null) {
+            throw new IllegalArgumentException("Duplicate route " + method + " " + template);
+        }
+        node.variableNames = variables.toArray(new String[0]);
+        node.methodNotAllowed = new MethodNotAllowedHandler(
+                String.join(", ", node.handlers.keySet()));
+        maxVariables = Math.max(maxVariables, variables.size());
+        return this;
+    }
+
+    // The handler for the request with its path variables set on the request. A path
+    // known only for other methods gets a 405 handler, an unknown path null.
+    public BaseHandler route(ParsedRequest request) {
+        String path = request.getPath();
+        if (path == null) {
+            return null;
+        }
+        int[] captures = maxVariables == 0 ? null : new int[maxVariables * 2];
+        Node node = find(root, path, path.startsWith("/") ? 1 : 0, captures, 0);
+        if (node == null) {
+            return null;
+        }
+        String method = request.getMethod();
+        BaseHandler handler = method == null ? null : node.handlers.get(method.toUpperCase());
+        if (handler == null) {
+            handler = node.handlers.get(ANY);
+        }
+        if (handler == null) {
+            return node.methodNotAllowed;
+        }
+        for (int i = 0; i < node.variableNames.length; i++) {
+            request.setPathVariable(node.variableNames[i],
+                    path.substring(captures[i * 2], captures[i * 2 + 1]));
+        }
+        return handler;
+    }
+
+    private static Node find(Node node, String path, int pos, int[] captures, int captured) {
+        if (pos >= path.length()) {
+            return node.handlers.isEmpty() ? null : node;
+        }
+        int end = path.indexOf('/', pos);
+        if (end < 0) {
+            end = path.length();
+        }
+        int length = end - pos;
+        for (int i = 0; i < node.literalCount; i++) {
+            String segment = node.literalSegments[i];
+            if (segment.length() == length && path.regionMatches(pos, segment, 0, length)) {
+                Node found = find(node.literals[i], path, end + 1, captures, captured);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        if (node.variable != null && length > 0) {
+            captures[captured * 2] = pos;
+            captures[captured * 2 + 1] = end;
+            return find(node.variable, path, end + 1, captures, captured + 1);
+        }
+        return null;
+    }
+
+    private static final class Node {
+        private String[] literalSegments = new String[0];
+        private Node[] literals = new Node[0];
+        private int literalCount;
+        private Node variable;
+        private final Map<String, BaseHandler> handlers = new LinkedHashMap<>();
+        private String[] variableNames;
+        private BaseHandler methodNotAllowed;
+
+        Node literal(String segment) {
+            for (int i = 0; i < literalCount; i++) {
+                if (literalSegments[i].equals(segment)) {
+                    return literals[i];
+                }
+            }
+            literalSegments = Arrays.copyOf(literalSegments, literalCount + 1);
+            literals = Arrays.copyOf(literals, literalCount + 1);
+            literalSegments[literalCount] = segment;
+            literals[literalCount] = new Node();
+            return literals[literalCount++];
+        }
+    }
+
+    private static final class MethodNotAllowedHandler implements BaseHandler {
+        private final String allowed;
+
+        MethodNotAllowedHandler(String allowed) {
+            this.allowed = allowed;
+        }
+
+        @Override
+        public ResponseBuilder handleRequest(ParsedRequest request) {
+            return new ResponseBuilder().setStatus(StatusCodes.METHOD_NOT_ALLOWED)
+                    .setHeader("Allow", allowed);
+        }
+    }
+}
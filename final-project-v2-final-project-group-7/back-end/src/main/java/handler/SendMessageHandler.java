@@ -1,69 +1,65 @@
-package handler;
-
-import auth.AuthFilter;
-import dao.ConversationDao;
-import dao.MessageDao;
-import dao.UserDao;
-import dto.ConversationDto;
-import dto.MessageDto;
-import request.ParsedRequest;
-import response.ResponseBuilder;
-import response.RestApiAppResponse;
-import response.StatusCodes;
-
-import java.util.List;
-
-// Done
-public class SendMessageHandler implements BaseHandler {
-
-    @Override
-    public ResponseBuilder handleRequest(ParsedRequest request) {
-        MessageDto messageDto = GsonTool.GSON.fromJson(request.getBody(), MessageDto.class);
-
-        AuthFilter.AuthResult authResult = AuthFilter.doFilter(request);
-        if (!authResult.isLoggedIn) {
-            return new ResponseBuilder().setStatus(StatusCodes.UNAUTHORIZED);
-        }
-
-        UserDao userDao = UserDao.getInstance();
-        var sendUser = userDao.query("userName", authResult.userName).stream()
-                .findFirst()
-                .orElse(null);
-        if (sendUser == null) {
-            var res = new RestApiAppResponse<>(false, null, "From id is invalid user");
-            return new ResponseBuilder().setStatus("200 OK").setBody(res);
-        }
-        var toUser = userDao.query("userName", messageDto.getToId()).stream()
-                .findFirst()
-                .orElse(null);
-        if (toUser == null) {
-            var res = new RestApiAppResponse<>(false, null, "To id is invalid user");
-            return new ResponseBuilder().setStatus("200 OK").setBody(res);
-        }
-
-        ConversationDao conversationDao = ConversationDao.getInstance();
-        String conversationId = ConversationDto.makeUniqueId(sendUser.getUserName(),
-                messageDto.getToId());
-        var potentialConvos = conversationDao.query("conversationId", conversationId);
-        ConversationDto conversationDto = potentialConvos.isEmpty()
-                ? null
-                : potentialConvos.getFirst();
-        if (conversationDto == null) {
-            conversationDto = new ConversationDto(
-                    sendUser.getUserName(), messageDto.getToId());
-        }
-        conversationDto.setMessageCount(conversationDto.getMessageCount() + 1);
-        conversationDao.put(conversationDto);
-        MessageDao messageDao = MessageDao.getInstance();
-        messageDto.setConversationId(conversationId);
-        messageDto.setFromId(sendUser.getUserName());
-        System.out.println("SendMessage - storing message with conversationId: " + conversationId);
-        messageDao.put(messageDto);
-        toUser.setMessagesRecieved(toUser.getMessagesRecieved() + 1);
-        sendUser.setMessagesSent(sendUser.getMessagesSent() + 1);
-        userDao.put(toUser);
-        userDao.put(sendUser);
-        var res = new RestApiAppResponse<>(true, List.of(conversationDto), null);
-        return new ResponseBuilder().setStatus("200 OK").setBody(res);
-    }
-}
+package handler;
+
+import auth.Principal;
+import dao.ConversationDao;
+import dao.MessageDao;
+import dao.UserDao;
+import dto.ConversationDto;
+import dto.MessageDto;
+import events.MessageHub;
+import request.ParsedRequest;
+import response.ResponseBuilder;
+import response.RestApiAppResponse;
+import response.StatusCodes;
+
+import java.util.List;
+
+// Done
+public class SendMessageHandler implements BaseHandler {
+
+    @Override
+    public ResponseBuilder handleRequest(ParsedRequest request) {
+        MessageDto messageDto = GsonTool.GSON.fromJson(request.getBody(), MessageDto.class);
+
+        Principal principal = request.getPrincipal();
+        if (!principal.isLoggedIn()) {
+            return new ResponseBuilder().setStatus(StatusCodes.UNAUTHORIZED);
+        }
+        var res = sendMessage(principal.getUserName(), messageDto);
+        return new ResponseBuilder().setStatus("200 OK").setBody(res);
+    }
+
+    // Stores a message from userName, shared by the http endpoint and the chat socket.
+    // Counters are bumped with $inc in place, which doubles as the check that both users
+    // exist, so nothing is read first and concurrent sends don't lose counts. They are
+    // taken back when the message can't be stored, and the conversation is only counted
+    // once it is.
+    public static RestApiAppResponse<ConversationDto> sendMessage(String userName,
+                                                                  MessageDto messageDto) {
+        UserDao userDao = UserDao.getInstance();
+        String toId = messageDto.getToId();
+        if (toId == null || !userDao.addMessagesReceived(toId, 1)) {
+            return new RestApiAppResponse<>(false, null, "To id is invalid user");
+        }
+        if (!userDao.addMessagesSent(userName, 1)) {
+            // take back the count of a message that isn't sent
+            userDao.addMessagesReceived(toId, -1);
+            return new RestApiAppResponse<>(false, null, "From id is invalid user");
+        }
+
+        messageDto.setConversationId(ConversationDto.makeUniqueId(userName, toId));
+        messageDto.setFromId(userName);
+        try {
+            MessageDao.getInstance().put(messageDto);
+        } catch (RuntimeException e) {
+            userDao.addMessagesSent(userName, -1);
+            userDao.addMessagesReceived(toId, -1);
+            throw e;
+        }
+        // the conversation as updated, the response needs no further read
+        ConversationDto conversationDto = ConversationDao.getInstance()
+                .recordMessage(userName, toId);
+        MessageHub.getInstance().publish(messageDto);
+        return new RestApiAppResponse<>(true, List.of(conversationDto), null);
+    }
+}
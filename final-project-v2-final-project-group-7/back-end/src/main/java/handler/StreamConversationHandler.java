@@ -0,0 +1,97 @@
+package handler;
+
+import auth.AuthFilter;
+import dto.MessageDto;
+import events.MessageHub;
+import events.Subscription;
+import request.ParsedRequest;
+import response.ResponseBuilder;
+import response.StatusCodes;
+import response.StreamingBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Server-sent events for the logged in user. Every message the user sends or receives
+// is pushed as it is stored, optionally only those of one conversationId, so the
+// client doesn't have to fetch the conversation again to see new messages.
+public class StreamConversationHandler implements BaseHandler {
+
+    private static final long HEARTBEAT_MS = 15000;
+    private static final byte[] RETRY = "retry: 3000\n\n".getBytes(StandardCharsets.UTF_8);
+    // comment line, keeps proxies from timing out an idle stream and finds dead clients
+    private static final byte[] PING = ": ping\n\n".getBytes(StandardCharsets.UTF_8);
+
+    @Override
+    public ResponseBuilder handleRequest(ParsedRequest request) {
+        AuthFilter.AuthResult authResult = AuthFilter.doFilter(request);
+        if (!authResult.isLoggedIn) {
+            return new ResponseBuilder().setStatus(StatusCodes.UNAUTHORIZED);
+        }
+        String conversationId = request.getQueryParam("conversationId");
+        return new ResponseBuilder().setStatus(StatusCodes.OK)
+                .setHeader("Content-Type", "text/event-stream")
+                .setHeader("Cache-Control", "no-cache")
+                .setStreamingBody(new EventStream(authResult.userName, conversationId));
+    }
+
+    public static class EventStream implements StreamingBody {
+        private final String userName;
+        private final String conversationId;
+
+        public EventStream(String userName, String conversationId) {
+            this.userName = userName;
+            this.conversationId = conversationId;
+        }
+
+        @Override
+        public void stream(InputStream in, OutputStream out) throws IOException {
+            // the connection is not read from while streaming, so a client that stops
+            // reading is only noticed when its queue overflows, closing the input
+            // closes the connection and ends the blocked write
+            try (Subscription subscription = MessageHub.getInstance()
+                    .subscribe(userName, () -> closeQuietly(in))) {
+                out.write(RETRY);
+                out.flush();
+                while (!subscription.isClosed()) {
+                    MessageDto message = subscription.poll(HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+                    if (message == null) {
+                        out.write(PING);
+                    }
+                    // whatever queued up meanwhile goes out in the same flush
+                    while (message != null) {
+                        writeEvent(out, message);
+                        message = subscription.poll();
+                    }
+                    out.flush();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private static void closeQuietly(InputStream in) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // already closed
+            }
+        }
+
+        private void writeEvent(OutputStream out, MessageDto message) throws IOException {
+            if (conversationId != null && !conversationId.equals(message.getConversationId())) {
+                return;
+            }
+            var event = new StringBuilder();
+            if (message.getUniqueId() != null) {
+                event.append("id: ").append(message.getUniqueId()).append('\n');
+            }
+            event.append("event: message\n")
+                    .append("data: ").append(GsonTool.GSON.toJson(message)).append("\n\n");
+            out.write(event.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package request;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Reusable byte buffers so a connection doesn't allocate a fresh array per request,
+// shared by the request readers and the response writer
+public class BufferPool {
+
+    public static final int BUFFER_SIZE = 8192;
+    private static final int MAX_POOLED = 1024;
+
+    private static final Queue<byte[]> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED = new AtomicInteger();
+
+    public static byte[] acquire() {
+        byte[] buffer = POOL.poll();
+        if (buffer == null) {
+            return new byte[BUFFER_SIZE];
+        }
+        POOLED.decrementAndGet();
+        return buffer;
+    }
+
+    // buffers that grew past BUFFER_SIZE for a large request are left to the gc
+    public static void release(byte[] buffer) {
+        if (buffer == null || buffer.length != BUFFER_SIZE) {
+            return;
+        }
+        if (POOLED.incrementAndGet() <= MAX_POOLED) {
+            POOL.offer(buffer);
+        } else {
+            POOLED.decrementAndGet();
+        }
+    }
+}
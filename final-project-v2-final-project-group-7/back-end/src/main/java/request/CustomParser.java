@@ -1,58 +1,68 @@
 package request;
 
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
 public class CustomParser {
 
     // extract java useable values from a raw http request string
     // https://developer.mozilla.org/en-US/docs/Web/HTTP/Messages
     public static ParsedRequest parse(String request) {
-        String[] lines = request.split("(\r\n|\r|\n)");
-        String requestLine = lines[0];
-        String[] requestParts = requestLine.split(" ");
-        var result = new ParsedRequest();
-        result.setMethod(requestParts[0]);
+        byte[] data = request.getBytes(StandardCharsets.UTF_8);
+        return parse(data, 0, data.length);
+    }
 
-        var parts = requestParts[1].split("\\?");
-        result.setPath(parts[0]);
+    // Parses straight from the request bytes. RawRequest finds the offsets of every
+    // part in one pass, ParsedRequest decodes the query, headers and cookies lazily.
+    public static ParsedRequest parse(byte[] data, int offset, int length) {
+        return new ParsedRequest(RawRequest.scan(data, offset, length));
+    }
 
-        if (parts.length == 2) {
-            System.out.println(parts[1]);
-            String[] queryParts = parts[1].split("&");
-            for (int i = 0; i < queryParts.length; i++) {
-                String[] pair = queryParts[i].split("=");
-                try {
-                    String decodedValue = java.net.URLDecoder.decode(pair[1], "UTF-8");
-                    result.setQueryParam(pair[0], decodedValue);
-                } catch (Exception e) {
-                    result.setQueryParam(pair[0], pair[1]);
+    static void parseQuery(String query, Map<String, String> result) {
+        int start = 0;
+        while (start < query.length()) {
+            int end = query.indexOf('&', start);
+            if (end < 0) {
+                end = query.length();
+            }
+            int equals = query.indexOf('=', start);
+            if (end > start) {
+                if (equals < 0 || equals > end) {
+                    result.put(query.substring(start, end), "");
+                } else {
+                    result.put(query.substring(start, equals),
+                            decode(query.substring(equals + 1, end)));
                 }
             }
+            start = end + 1;
         }
+    }
 
-        String body = "";
-        boolean emptyLine = false;
-        for (String line : lines) {
-            if (line.contains(":") && !emptyLine) {
-                String[] headerParts = line.split(":");
-                String key = headerParts[0].trim();
-                String value = headerParts[1].trim();
-                result.setHeaderValue(key, value);
+    private static String decode(String value) {
+        if (value.indexOf('%') < 0 && value.indexOf('+') < 0) {
+            return value;
+        }
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return value;
+        }
+    }
 
-                if (key.equalsIgnoreCase("cookie")) {
-                    String[] cookieParts = value.trim().split(";");
-                    for (String cookiePart : cookieParts) {
-                        String[] cookieStringParts = cookiePart.split("=");
-                        result.setCookieValue(cookieStringParts[0], cookieStringParts[1]);
-                    }
-                }
-            }
-            if (line.equals("")) {
-                emptyLine = true;
+    static void parseCookies(String value, Map<String, String> result) {
+        int start = 0;
+        while (start < value.length()) {
+            int end = value.indexOf(';', start);
+            if (end < 0) {
+                end = value.length();
             }
-            if (emptyLine) {
-                body += line;
+            int equals = value.indexOf('=', start);
+            if (equals > start && equals < end) {
+                result.put(value.substring(start, equals).trim(),
+                        value.substring(equals + 1, end).trim());
             }
+            start = end + 1;
         }
-        result.setBody(body);
-        return result;
     }
 }
@@ -0,0 +1,103 @@
+package request;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+
+// Reads framed requests off a connection's input stream. Bytes are read in blocks into
+// a pooled buffer that is kept for the life of the connection, the buffer only grows
+// when a single request doesn't fit in it.
+public class HttpRequestReader implements Closeable {
+
+    private final InputStream in;
+    private final int maxHeaderBytes;
+    private final int maxBodyBytes;
+    private byte[] buffer = BufferPool.acquire();
+    // unread bytes are buffer[start, end)
+    private int start;
+    private int end;
+
+    public HttpRequestReader(InputStream in, int maxHeaderBytes, int maxBodyBytes) {
+        this.in = in;
+        this.maxHeaderBytes = maxHeaderBytes;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    // The bytes of the next request, header block followed by its body, null once the
+    // client closed the connection between requests.
+    public byte[] readRequest() throws IOException {
+        while (true) {
+            skipLineBreaks();
+            if (start < end) {
+                RequestFrame frame = RequestFraming.frame(buffer, start, end - start,
+                        maxHeaderBytes, maxBodyBytes);
+                if (frame != null) {
+                    byte[] request = frame.toBytes(buffer, start);
+                    start += frame.length();
+                    return request;
+                }
+            }
+            if (!fill()) {
+                if (start == end) {
+                    return null;
+                }
+                throw new EOFException("Connection closed in the middle of a request");
+            }
+        }
+    }
+
+    // true when pipelined bytes are already waiting, so the response can stay buffered
+    public boolean hasBufferedInput() throws IOException {
+        return start < end || in.available() > 0;
+    }
+
+    // the connection's input from here on, starting with bytes already read past the
+    // last request, for responses that take the connection over
+    public InputStream remainingInput() {
+        var buffered = new ByteArrayInputStream(Arrays.copyOfRange(buffer, start, end));
+        start = end;
+        return new SequenceInputStream(buffered, in);
+    }
+
+    @Override
+    public void close() {
+        BufferPool.release(buffer);
+        buffer = null;
+    }
+
+    // stray line breaks between requests are allowed and ignored
+    private void skipLineBreaks() {
+        while (start < end && (buffer[start] == '\r' || buffer[start] == '\n')) {
+            start++;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+        if (end == buffer.length) {
+            // framing rejects anything over the limits before it gets this big
+            long limit = (long) maxHeaderBytes + maxBodyBytes + BufferPool.BUFFER_SIZE;
+            int size = (int) Math.min(Integer.MAX_VALUE - 8, Math.min(limit, buffer.length * 2L));
+            if (size <= buffer.length) {
+                throw new RequestTooLargeException("Request over " + buffer.length + " bytes");
+            }
+            byte[] grown = Arrays.copyOf(buffer, size);
+            BufferPool.release(buffer);
+            buffer = grown;
+        }
+        int count = in.read(buffer, end, buffer.length - end);
+        if (count < 0) {
+            return false;
+        }
+        end += count;
+        return true;
+    }
+}
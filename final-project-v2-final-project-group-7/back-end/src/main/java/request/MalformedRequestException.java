@@ -0,0 +1,11 @@
+package request;
+
+import java.io.IOException;
+
+// The request can't be framed, its Content-Length or chunk sizes can't be read
+public class MalformedRequestException extends IOException {
+
+    public MalformedRequestException(String message) {
+        super(message);
+    }
+}
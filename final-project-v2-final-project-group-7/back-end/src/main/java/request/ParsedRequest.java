@@ -1,32 +1,59 @@
 package request;
 
+import auth.Principal;
+
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
+// A request from the wire keeps its RawRequest and only decodes the query string,
+// headers and cookies the first time a handler asks for one of them. Header names
+// are matched ignoring case.
 public class ParsedRequest {
 
+    private RawRequest raw;
+
     private String path;
-    private Map<String, String> queryMap = new HashMap<>();
-    private Map<String, String> headerMap = new HashMap<>();
-    private Map<String, String> cookieMap = new HashMap<>();
+    private Map<String, String> queryMap;
+    private Map<String, String> headerMap;
+    private Map<String, String> cookieMap;
+    private Map<String, String> pathVariables;
+    private Principal principal;
 
     private String method;
+    private String version;
     private String body;
+    private boolean bodyLoaded;
+
+    public ParsedRequest() {
+    }
+
+    public ParsedRequest(RawRequest raw) {
+        this.raw = raw;
+        this.method = raw.method();
+        this.path = raw.path();
+        this.version = raw.version();
+    }
 
     public String getQueryParam(String key) {
-        return queryMap.get(key);
+        return queries().get(key);
     }
 
+    // read from the raw request in place until a header is set, the connection and
+    // encoding checks on every request never decode the rest
     public String getHeaderValue(String key) {
+        if (headerMap == null) {
+            return raw == null ? null : raw.header(key);
+        }
         return headerMap.get(key);
     }
 
     public void setQueryParam(String key, String value) {
-        this.queryMap.put(key, value);
+        queries().put(key, value);
     }
 
     public void setHeaderValue(String key, String value) {
-        this.headerMap.put(key, value);
+        headers().put(key, value);
     }
 
     public void setPath(String path) {
@@ -45,19 +72,86 @@ public class ParsedRequest {
         return method;
     }
 
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
     public String getBody() {
+        if (!bodyLoaded && raw != null) {
+            body = raw.body();
+        }
+        bodyLoaded = true;
         return body;
     }
 
     public void setBody(String body) {
         this.body = body;
+        this.bodyLoaded = true;
     }
 
     public void setCookieValue(String key, String value) {
-        this.cookieMap.put(key, value);
+        cookies().put(key, value);
     }
 
     public String getCookieValue(String key) {
-        return cookieMap.get(key);
+        return cookies().get(key);
+    }
+
+    // the {name} segments of the route template the request matched
+    public String getPathVariable(String name) {
+        return pathVariables == null ? null : pathVariables.get(name);
+    }
+
+    public void setPathVariable(String name, String value) {
+        if (pathVariables == null) {
+            pathVariables = new HashMap<>(4);
+        }
+        pathVariables.put(name, value);
+    }
+
+    // who is making the request, looked up once and shared by everything handling it
+    public Principal getPrincipal() {
+        if (principal == null) {
+            principal = new Principal(this);
+        }
+        return principal;
+    }
+
+    private Map<String, String> queries() {
+        if (queryMap == null) {
+            queryMap = new HashMap<>();
+            if (raw != null && raw.query() != null) {
+                CustomParser.parseQuery(raw.query(), queryMap);
+            }
+        }
+        return queryMap;
+    }
+
+    // every header decoded into a map, only needed once one is set
+    private Map<String, String> headers() {
+        if (headerMap == null) {
+            headerMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            if (raw != null) {
+                for (int i = 0; i < raw.headerCount(); i++) {
+                    headerMap.putIfAbsent(raw.headerName(i), raw.headerValue(i));
+                }
+            }
+        }
+        return headerMap;
+    }
+
+    private Map<String, String> cookies() {
+        if (cookieMap == null) {
+            cookieMap = new HashMap<>();
+            String cookieHeader = getHeaderValue("Cookie");
+            if (cookieHeader != null) {
+                CustomParser.parseCookies(cookieHeader, cookieMap);
+            }
+        }
+        return cookieMap;
     }
 }
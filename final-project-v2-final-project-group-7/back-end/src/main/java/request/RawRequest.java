@@ -0,0 +1,212 @@
+package request;
+
+import java.nio.charset.StandardCharsets;
+
+// Offsets of the parts of one http request inside its bytes. Scanning only records
+// where the method, target, headers and body are, a part becomes a String when it
+// is asked for.
+public class RawRequest {
+
+    // header names browsers send on almost every request, handed out instead of
+    // allocating a new String per request
+    private static final String[] COMMON_HEADERS = {
+        "Host", "Connection", "Cookie", "Content-Length", "Content-Type", "Accept",
+        "Accept-Encoding", "Accept-Language", "User-Agent", "Referer", "Origin",
+        "Cache-Control", "Transfer-Encoding", "Upgrade", "Sec-Fetch-Dest",
+        "Sec-Fetch-Mode", "Sec-Fetch-Site", "Sec-WebSocket-Key", "Sec-WebSocket-Version",
+    };
+
+    private final byte[] data;
+    private int methodStart;
+    private int methodEnd;
+    private int pathStart;
+    private int pathEnd;
+    private int queryStart = -1;
+    private int targetEnd;
+    private int versionStart;
+    private int versionEnd;
+    // nameStart, nameEnd, valueStart, valueEnd for every header line
+    private int[] headers = new int[4 * 16];
+    private int headerCount;
+    private int bodyStart;
+    private final int end;
+
+    private RawRequest(byte[] data, int end) {
+        this.data = data;
+        this.end = end;
+    }
+
+    public static RawRequest scan(byte[] data, int offset, int length) {
+        var raw = new RawRequest(data, offset + length);
+        raw.scanRequestLine(offset);
+        return raw;
+    }
+
+    private void scanRequestLine(int offset) {
+        int lineEnd = lineEnd(offset);
+        int space = indexOf((byte) ' ', offset, lineEnd);
+        if (space <= offset) {
+            throw new IllegalArgumentException("Malformed request line");
+        }
+        methodStart = offset;
+        methodEnd = space;
+        pathStart = space + 1;
+        targetEnd = indexOf((byte) ' ', pathStart, lineEnd);
+        if (targetEnd < 0) {
+            targetEnd = trimEnd(pathStart, lineEnd);
+            versionStart = targetEnd;
+            versionEnd = targetEnd;
+        } else {
+            versionStart = targetEnd + 1;
+            versionEnd = trimEnd(versionStart, lineEnd);
+        }
+        int question = indexOf((byte) '?', pathStart, targetEnd);
+        pathEnd = question < 0 ? targetEnd : question;
+        queryStart = question < 0 ? -1 : question + 1;
+        scanHeaders(Math.min(lineEnd + 1, end));
+    }
+
+    private void scanHeaders(int pos) {
+        while (pos < end) {
+            int lineEnd = lineEnd(pos);
+            int contentEnd = trimEnd(pos, lineEnd);
+            if (contentEnd == pos) {
+                // blank line, the body follows
+                bodyStart = Math.min(lineEnd + 1, end);
+                return;
+            }
+            int colon = indexOf((byte) ':', pos, contentEnd);
+            if (colon > pos) {
+                addHeader(trimStart(pos, colon), trimEnd(pos, colon),
+                        trimStart(colon + 1, contentEnd), contentEnd);
+            }
+            pos = lineEnd + 1;
+        }
+        bodyStart = end;
+    }
+
+    private void addHeader(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+        if (headerCount * 4 == headers.length) {
+            int[] grown = new int[headers.length * 2];
+            System.arraycopy(headers, 0, grown, 0, headers.length);
+            headers = grown;
+        }
+        int i = headerCount * 4;
+        headers[i] = nameStart;
+        headers[i + 1] = nameEnd;
+        headers[i + 2] = valueStart;
+        headers[i + 3] = valueEnd;
+        headerCount++;
+    }
+
+    public String method() {
+        return ascii(methodStart, methodEnd);
+    }
+
+    public String path() {
+        return ascii(pathStart, pathEnd);
+    }
+
+    // raw query string without the '?', null when the target has none
+    public String query() {
+        return queryStart < 0 ? null : ascii(queryStart, targetEnd);
+    }
+
+    public String version() {
+        return versionStart == versionEnd ? null : ascii(versionStart, versionEnd);
+    }
+
+    public int headerCount() {
+        return headerCount;
+    }
+
+    public String headerName(int index) {
+        int start = headers[index * 4];
+        int end = headers[index * 4 + 1];
+        for (String common : COMMON_HEADERS) {
+            if (common.length() == end - start && headerNameEquals(index, common)) {
+                return common;
+            }
+        }
+        return ascii(start, end);
+    }
+
+    public String headerValue(int index) {
+        return utf8(headers[index * 4 + 2], headers[index * 4 + 3]);
+    }
+
+    // compares the header name in place, ignoring case, without building a String
+    public boolean headerNameEquals(int index, String name) {
+        int start = headers[index * 4];
+        int length = headers[index * 4 + 1] - start;
+        if (length != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            int a = data[start + i] | 0x20;
+            int b = name.charAt(i) | 0x20;
+            if (a != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // value of the first header with this name, ignoring case, null when missing
+    public String header(String name) {
+        for (int i = 0; i < headerCount; i++) {
+            if (headerNameEquals(i, name)) {
+                return headerValue(i);
+            }
+        }
+        return null;
+    }
+
+    public int bodyLength() {
+        return end - bodyStart;
+    }
+
+    public String body() {
+        return utf8(bodyStart, end);
+    }
+
+    private int lineEnd(int from) {
+        int newline = indexOf((byte) '\n', from, end);
+        return newline < 0 ? end : newline;
+    }
+
+    private int indexOf(byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int trimStart(int from, int to) {
+        while (from < to && (data[from] == ' ' || data[from] == '\t')) {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimEnd(int from, int to) {
+        while (to > from) {
+            byte last = data[to - 1];
+            if (last != ' ' && last != '\t' && last != '\r') {
+                break;
+            }
+            to--;
+        }
+        return to;
+    }
+
+    private String ascii(int from, int to) {
+        return new String(data, from, to - from, StandardCharsets.ISO_8859_1);
+    }
+
+    private String utf8(int from, int to) {
+        return new String(data, from, to - from, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,35 @@
+package request;
+
+import java.util.Arrays;
+
+// Where one request sits in a byte buffer: the header block, then the body as it
+// arrived on the wire (chunked bodies still carry their chunk framing).
+public class RequestFrame {
+
+    public final int headerLength;
+    public final int bodyLength;
+    public final boolean chunked;
+
+    public RequestFrame(int headerLength, int bodyLength, boolean chunked) {
+        this.headerLength = headerLength;
+        this.bodyLength = bodyLength;
+        this.chunked = chunked;
+    }
+
+    public int length() {
+        return headerLength + bodyLength;
+    }
+
+    // Copy of the request bytes, a chunked body is decoded so the copy reads like a
+    // request with a plain body. The copy outlives the connection's reused buffer.
+    public byte[] toBytes(byte[] data, int offset) {
+        if (!chunked) {
+            return Arrays.copyOfRange(data, offset, offset + length());
+        }
+        byte[] body = RequestFraming.decodeChunked(data, offset + headerLength, bodyLength);
+        byte[] request = Arrays.copyOf(Arrays.copyOfRange(data, offset, offset + headerLength),
+                headerLength + body.length);
+        System.arraycopy(body, 0, request, headerLength, body.length);
+        return request;
+    }
+}
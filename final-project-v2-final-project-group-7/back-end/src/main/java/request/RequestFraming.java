@@ -0,0 +1,195 @@
+package request;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Works out where one http request ends in a stream of bytes, so several requests
+// can be read from the same connection.
+public class RequestFraming {
+
+    // Frame of the first request in data[offset, offset + length), null while it is
+    // incomplete. Throws once the header block or the body is known to be over the limits,
+    // or when the body's length can't be read, since guessing it would frame the body as
+    // the next request.
+    public static RequestFrame frame(byte[] data, int offset, int length,
+                                     int maxHeaderBytes, int maxBodyBytes)
+            throws RequestTooLargeException, MalformedRequestException {
+        int headerLength = headerBlockLength(data, offset, length);
+        if (headerLength < 0 ? length > maxHeaderBytes : headerLength > maxHeaderBytes) {
+            throw new RequestTooLargeException("Request header block over " + maxHeaderBytes);
+        }
+        if (headerLength < 0) {
+            return null;
+        }
+        String headers = new String(data, offset, headerLength, StandardCharsets.ISO_8859_1);
+        if (isChunked(headers)) {
+            int bodyLength = chunkedBodyLength(data, offset + headerLength,
+                    length - headerLength, maxBodyBytes);
+            if (bodyLength < 0 && length - headerLength > maxBodyBytes) {
+                throw new RequestTooLargeException("Request body over " + maxBodyBytes);
+            }
+            return bodyLength < 0 ? null : new RequestFrame(headerLength, bodyLength, true);
+        }
+        int contentLength = contentLength(headers);
+        if (contentLength > maxBodyBytes) {
+            throw new RequestTooLargeException("Request body over " + maxBodyBytes);
+        }
+        return headerLength + contentLength <= length
+                ? new RequestFrame(headerLength, contentLength, false)
+                : null;
+    }
+
+    // Number of bytes the first request in data[offset, offset + length) takes,
+    // -1 while it is incomplete.
+    public static int frameLength(byte[] data, int offset, int length) {
+        try {
+            RequestFrame frame = frame(data, offset, length, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            return frame == null ? -1 : frame.length();
+        } catch (RequestTooLargeException | MalformedRequestException e) {
+            return -1;
+        }
+    }
+
+    // Bytes up to and including the blank line that ends the headers, -1 if it hasn't arrived
+    public static int headerBlockLength(byte[] data, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (data[i] != '\n') {
+                continue;
+            }
+            if (i + 1 < end && data[i + 1] == '\n') {
+                return i + 2 - offset;
+            }
+            if (i + 2 < end && data[i + 1] == '\r' && data[i + 2] == '\n') {
+                return i + 3 - offset;
+            }
+        }
+        return -1;
+    }
+
+    // Content-Length of a raw header block, 0 when missing. Only plain digits are read,
+    // a sign or a value past Integer.MAX_VALUE is malformed.
+    public static int contentLength(String headers) throws MalformedRequestException {
+        String value = headerValue(headers, "Content-Length");
+        if (value == null) {
+            return 0;
+        }
+        if (value.isEmpty() || !value.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            throw new MalformedRequestException("Bad Content-Length " + value);
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new MalformedRequestException("Bad Content-Length " + value);
+        }
+    }
+
+    public static boolean isChunked(String headers) {
+        String value = headerValue(headers, "Transfer-Encoding");
+        return value != null && value.toLowerCase().contains("chunked");
+    }
+
+    // Encoded size of a chunked body, every chunk plus the last chunk and trailers,
+    // -1 while it is incomplete. Throws once the chunks add up to more than maxBodyBytes.
+    public static int chunkedBodyLength(byte[] data, int offset, int length, int maxBodyBytes)
+            throws RequestTooLargeException, MalformedRequestException {
+        int pos = offset;
+        int end = offset + length;
+        long payload = 0;
+        while (true) {
+            int lineEnd = indexOfNewline(data, pos, end);
+            if (lineEnd < 0) {
+                return -1;
+            }
+            long size = chunkSize(data, pos, lineEnd, maxBodyBytes);
+            if (size < 0) {
+                throw new MalformedRequestException("Chunk without a size");
+            }
+            payload += size;
+            if (payload > maxBodyBytes) {
+                throw new RequestTooLargeException("Request body over " + maxBodyBytes);
+            }
+            pos = lineEnd + 1;
+            if (size == 0) {
+                break;
+            }
+            if (size > end - pos) {
+                return -1;
+            }
+            pos += (int) size;
+            // every chunk is followed by a line break
+            int afterChunk = indexOfNewline(data, pos, end);
+            if (afterChunk < 0) {
+                return -1;
+            }
+            pos = afterChunk + 1;
+        }
+        // trailers, ended by an empty line
+        while (true) {
+            int lineEnd = indexOfNewline(data, pos, end);
+            if (lineEnd < 0) {
+                return -1;
+            }
+            boolean empty = lineEnd == pos || (lineEnd == pos + 1 && data[pos] == '\r');
+            pos = lineEnd + 1;
+            if (empty) {
+                return pos - offset;
+            }
+        }
+    }
+
+    // Payload of a complete chunked body
+    public static byte[] decodeChunked(byte[] data, int offset, int length) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(length);
+        int pos = offset;
+        int end = offset + length;
+        while (pos < end) {
+            int lineEnd = indexOfNewline(data, pos, end);
+            // already framed, so every size is there and within the limit
+            int size = (int) chunkSize(data, pos, lineEnd, Integer.MAX_VALUE);
+            if (size == 0) {
+                break;
+            }
+            body.write(data, lineEnd + 1, size);
+            pos = indexOfNewline(data, lineEnd + 1 + size, end) + 1;
+        }
+        return body.toByteArray();
+    }
+
+    // Size on a chunk-size line, -1 when the line starts without one. Parsing stops once
+    // the size passes limit, so a long run of digits comes back as limit + 1 instead of
+    // overflowing.
+    private static long chunkSize(byte[] data, int from, int lineEnd, int limit) {
+        long size = -1;
+        for (int i = from; i < lineEnd; i++) {
+            int digit = Character.digit(data[i], 16);
+            if (digit < 0) {
+                break; // chunk extensions or the line's \r
+            }
+            size = Math.max(size, 0) * 16 + digit;
+            if (size > limit) {
+                return limit + 1L;
+            }
+        }
+        return size;
+    }
+
+    private static int indexOfNewline(byte[] data, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (data[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String headerValue(String headers, String name) {
+        for (String line : headers.split("\r?\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase(name)) {
+                return line.substring(colon + 1).trim();
+            }
+        }
+        return null;
+    }
+}
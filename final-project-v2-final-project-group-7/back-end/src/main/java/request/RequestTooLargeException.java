@@ -0,0 +1,11 @@
+package request;
+
+import java.io.IOException;
+
+// The header block or body of a request is over the configured limit
+public class RequestTooLargeException extends IOException {
+
+    public RequestTooLargeException(String message) {
+        super(message);
+    }
+}
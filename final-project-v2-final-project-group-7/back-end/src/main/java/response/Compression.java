@@ -0,0 +1,129 @@
+package response;
+
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+// How a response body gets compressed, picked per request from its Accept-Encoding.
+// Deflaters hold native memory, so they are pooled and reset between responses
+// instead of being created and ended for every body.
+public class Compression {
+
+    public enum Encoding {
+        GZIP("gzip", true),
+        DEFLATE("deflate", false);
+
+        private static final int MAX_POOLED = 256;
+
+        private final String token;
+        // gzip writes its own header and trailer around a raw deflate stream
+        private final boolean nowrap;
+        private final Queue<Deflater> pool = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pooled = new AtomicInteger();
+
+        Encoding(String token, boolean nowrap) {
+            this.token = token;
+            this.nowrap = nowrap;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        Deflater acquire(int level) {
+            Deflater deflater = pool.poll();
+            if (deflater == null) {
+                return new Deflater(level, nowrap);
+            }
+            pooled.decrementAndGet();
+            deflater.setLevel(level);
+            return deflater;
+        }
+
+        void release(Deflater deflater) {
+            deflater.reset();
+            if (pooled.incrementAndGet() <= MAX_POOLED) {
+                pool.offer(deflater);
+            } else {
+                pooled.decrementAndGet();
+                deflater.end();
+            }
+        }
+    }
+
+    private final Encoding encoding;
+    private final int level;
+    private final int minBytes;
+
+    public Compression(Encoding encoding, int level, int minBytes) {
+        this.encoding = encoding;
+        this.level = level;
+        this.minBytes = minBytes;
+    }
+
+    // null when the client accepts neither gzip nor deflate or compression is off (level 0)
+    public static Compression negotiate(String acceptEncoding, int level, int minBytes) {
+        Encoding encoding = preferredEncoding(acceptEncoding);
+        if (encoding == null || level == 0) {
+            return null;
+        }
+        return new Compression(encoding, level, minBytes);
+    }
+
+    // gzip wins a tie, a q of 0 rules an encoding out, * stands in for unlisted ones
+    static Encoding preferredEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String name = params[0].trim().toLowerCase(Locale.ROOT);
+            double q = quality(params);
+            switch (name) {
+                case "gzip", "x-gzip" -> gzip = q;
+                case "deflate" -> deflate = q;
+                case "*" -> any = q;
+                default -> {
+                    // br, identity and the rest aren't produced here
+                }
+            }
+        }
+        gzip = gzip < 0 ? any : gzip;
+        deflate = deflate < 0 ? any : deflate;
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? Encoding.GZIP : Encoding.DEFLATE;
+    }
+
+    private static double quality(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getMinBytes() {
+        return minBytes;
+    }
+}
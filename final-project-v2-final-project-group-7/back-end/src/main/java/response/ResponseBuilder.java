@@ -1,60 +1,74 @@
-package response;
-
-import handler.GsonTool;
-
-import java.util.HashMap;
-import java.util.Map;
-
-public class ResponseBuilder {
-
-    private Map<String, String> headers = new HashMap<>();
-    private String status;
-    private String version = "HTTP/1.1";
-    private RestApiAppResponse body;
-
-    public ResponseBuilder setHeaders(Map<String, String> headers) {
-        this.headers = headers;
-        return this;
-    }
-
-    public ResponseBuilder setHeader(String key, String value) {
-        headers.put(key, value);
-        return this;
-    }
-
-    public ResponseBuilder setStatus(String status) {
-        this.status = status;
-        return this;
-    }
-
-    public ResponseBuilder setVersion(String version) {
-        this.version = version;
-        return this;
-    }
-
-    public ResponseBuilder setBody(RestApiAppResponse body) {
-        this.body = body;
-        return this;
-    }
-
-    public Map<String, String> getHeaders() {
-        return headers;
-    }
-
-    public String getStatus() {
-        return status;
-    }
-
-    public String getVersion() {
-        return version;
-    }
-
-    public RestApiAppResponse getBody() {
-        return body;
-    }
-
-    public CustomHttpResponse build() {
-        String parsedBody = body != null ? GsonTool.GSON.toJson(body) : "";
-        return new CustomHttpResponse(headers, status, version, parsedBody);
-    }
-}
+package response;
+
+import handler.GsonTool;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ResponseBuilder {
+
+    private Map<String, String> headers = new HashMap<>();
+    private String status;
+    private String version = "HTTP/1.1";
+    private RestApiAppResponse body;
+    private StreamingBody streamingBody;
+
+    public ResponseBuilder setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+        return this;
+    }
+
+    public ResponseBuilder setHeader(String key, String value) {
+        headers.put(key, value);
+        return this;
+    }
+
+    public ResponseBuilder setStatus(String status) {
+        this.status = status;
+        return this;
+    }
+
+    public ResponseBuilder setVersion(String version) {
+        this.version = version;
+        return this;
+    }
+
+    public ResponseBuilder setBody(RestApiAppResponse body) {
+        this.body = body;
+        return this;
+    }
+
+    // the connection stays open for this body instead of taking the next request
+    public ResponseBuilder setStreamingBody(StreamingBody streamingBody) {
+        this.streamingBody = streamingBody;
+        return this;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public RestApiAppResponse getBody() {
+        return body;
+    }
+
+    public StreamingBody getStreamingBody() {
+        return streamingBody;
+    }
+
+    public CustomHttpResponse build() {
+        String parsedBody = body != null ? GsonTool.GSON.toJson(body) : "";
+        if (body != null && body.data instanceof StreamedData<?> streamed) {
+            streamed.close();
+        }
+        return new CustomHttpResponse(headers, status, version, parsedBody);
+    }
+}
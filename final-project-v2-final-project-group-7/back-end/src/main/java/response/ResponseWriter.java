@@ -0,0 +1,313 @@
+package response;
+
+import com.google.gson.stream.JsonWriter;
+import handler.GsonTool;
+import request.BufferPool;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Writes a response straight to the connection's output stream. The status line and
+// fixed headers are encoded once, the body is serialized by gson into a pooled buffer.
+// A body that fits in the buffer goes out with a Content-Length, a bigger one is sent
+// with chunked encoding as the buffer fills so the payload is never held twice. When
+// the client accepts gzip or deflate, bodies over the threshold are compressed on the
+// way into that buffer.
+public class ResponseWriter {
+
+    private static final byte[] CRLF = bytes("\r\n");
+    private static final byte[] JSON_CONTENT_TYPE = bytes("Content-Type: application/json\r\n");
+    private static final byte[] KEEP_ALIVE = bytes("Connection: keep-alive\r\n");
+    private static final byte[] CLOSE = bytes("Connection: close\r\n");
+    private static final byte[] CHUNKED = bytes("Transfer-Encoding: chunked\r\n");
+    private static final byte[] VARY = bytes("Vary: Accept-Encoding\r\n");
+    private static final byte[] CONTENT_LENGTH = bytes("Content-Length: ");
+    private static final byte[] LAST_CHUNK = bytes("0\r\n\r\n");
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0,
+        0, 0};
+    private static final Map<String, byte[]> STATUS_LINES = new ConcurrentHashMap<>();
+
+    // chunked is false for HTTP/1.0 clients, their body is always buffered whole
+    public static void write(ResponseBuilder response, OutputStream out, boolean keepAlive,
+                             boolean chunked) throws IOException {
+        write(response, out, keepAlive, chunked, null);
+    }
+
+    // compression is null when the body goes out as is
+    public static void write(ResponseBuilder response, OutputStream out, boolean keepAlive,
+                             boolean chunked, Compression compression) throws IOException {
+        if (response.getStreamingBody() != null) {
+            // runs until the connection closes, so there is no length and nothing to chunk
+            new Head(response, false, false).write(out, -1, false);
+            return;
+        }
+        var head = new Head(response, keepAlive, compression != null);
+        RestApiAppResponse body = response.getBody();
+        if (body == null) {
+            head.write(out, 0, false);
+            return;
+        }
+        try (var stream = new BodyStream(head, out, chunked);
+             var compressed = compression == null ? null
+                     : new CompressingStream(head, stream, compression)) {
+            OutputStream target = compressed == null ? stream : compressed;
+            var json = new JsonWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8));
+            GsonTool.GSON.toJson(body, body.getClass(), json);
+            json.flush();
+            if (compressed != null) {
+                compressed.finish();
+            }
+            stream.finish();
+        } finally {
+            if (body.data instanceof StreamedData<?> streamed) {
+                streamed.close();
+            }
+        }
+    }
+
+    private static byte[] statusLine(String version, String status) {
+        return STATUS_LINES.computeIfAbsent(version + " " + status,
+                line -> bytes(line + "\r\n"));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // status line and headers, written once the body's framing is known. A negative
+    // content length leaves the length out for bodies that end with the connection.
+    private static class Head {
+        private final ResponseBuilder response;
+        private final boolean keepAlive;
+        private final boolean negotiated;
+        private Compression.Encoding encoding;
+
+        Head(ResponseBuilder response, boolean keepAlive, boolean negotiated) {
+            this.response = response;
+            this.keepAlive = keepAlive;
+            this.negotiated = negotiated;
+        }
+
+        void write(OutputStream out, int contentLength, boolean chunked) throws IOException {
+            out.write(statusLine(response.getVersion(), response.getStatus()));
+            Map<String, String> headers = response.getHeaders();
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                out.write(bytes(header.getKey() + ": " + header.getValue()));
+                out.write(CRLF);
+            }
+            if (response.getBody() != null && !headers.containsKey("Content-Type")) {
+                out.write(JSON_CONTENT_TYPE);
+            }
+            if (negotiated) {
+                // the body depends on Accept-Encoding even when it went out uncompressed
+                out.write(VARY);
+            }
+            if (encoding != null) {
+                out.write(bytes("Content-Encoding: " + encoding.getToken()));
+                out.write(CRLF);
+            }
+            if (!headers.containsKey("Connection")) {
+                out.write(keepAlive ? KEEP_ALIVE : CLOSE);
+            }
+            if (chunked) {
+                out.write(CHUNKED);
+            } else if (contentLength >= 0) {
+                out.write(CONTENT_LENGTH);
+                out.write(bytes(Integer.toString(contentLength)));
+                out.write(CRLF);
+            }
+            out.write(CRLF);
+        }
+    }
+
+    // Collects the serialized body in a pooled buffer. Once it overflows the head is
+    // sent as chunked and every full buffer becomes one chunk.
+    private static class BodyStream extends OutputStream {
+        private final Head head;
+        private final OutputStream out;
+        private final boolean chunkedAllowed;
+        private byte[] buffer = BufferPool.acquire();
+        private int count;
+        private boolean streaming;
+
+        BodyStream(Head head, OutputStream out, boolean chunkedAllowed) {
+            this.head = head;
+            this.out = out;
+            this.chunkedAllowed = chunkedAllowed;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                overflow();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    overflow();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void overflow() throws IOException {
+            if (!chunkedAllowed) {
+                byte[] grown = Arrays.copyOf(buffer, buffer.length * 2);
+                BufferPool.release(buffer);
+                buffer = grown;
+                return;
+            }
+            if (!streaming) {
+                head.write(out, 0, true);
+                streaming = true;
+            }
+            writeChunk();
+        }
+
+        private void writeChunk() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            out.write(bytes(Integer.toHexString(count)));
+            out.write(CRLF);
+            out.write(buffer, 0, count);
+            out.write(CRLF);
+            count = 0;
+        }
+
+        // sends what is left, the head with a Content-Length when nothing went out yet
+        void finish() throws IOException {
+            if (streaming) {
+                writeChunk();
+                out.write(LAST_CHUNK);
+            } else {
+                head.write(out, count, false);
+                out.write(buffer, 0, count);
+            }
+        }
+
+        @Override
+        public void close() {
+            BufferPool.release(buffer);
+            buffer = null;
+        }
+    }
+
+    // Sits in front of the body stream. The first bytes are held back until the body
+    // reaches the threshold, a body that never does is passed through uncompressed.
+    private static class CompressingStream extends OutputStream {
+        private final Head head;
+        private final OutputStream out;
+        private final Compression compression;
+        private final int threshold;
+        private byte[] pending = BufferPool.acquire();
+        private int count;
+        private Deflater deflater;
+        private byte[] deflated;
+        private final CRC32 crc = new CRC32();
+
+        CompressingStream(Head head, OutputStream out, Compression compression) {
+            this.head = head;
+            this.out = out;
+            this.compression = compression;
+            this.threshold = Math.min(compression.getMinBytes(), pending.length);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (deflater == null) {
+                int n = Math.min(len, pending.length - count);
+                System.arraycopy(b, off, pending, count, n);
+                count += n;
+                off += n;
+                len -= n;
+                if (count < threshold) {
+                    return;
+                }
+                start();
+            }
+            deflate(b, off, len);
+        }
+
+        private void start() throws IOException {
+            Compression.Encoding encoding = compression.getEncoding();
+            head.encoding = encoding;
+            deflater = encoding.acquire(compression.getLevel());
+            deflated = BufferPool.acquire();
+            if (encoding == Compression.Encoding.GZIP) {
+                out.write(GZIP_HEADER);
+            }
+            deflate(pending, 0, count);
+        }
+
+        private void deflate(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            crc.update(b, off, len);
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            int n = deflater.deflate(deflated, 0, deflated.length);
+            out.write(deflated, 0, n);
+        }
+
+        void finish() throws IOException {
+            if (deflater == null) {
+                out.write(pending, 0, count);
+                return;
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain();
+            }
+            if (compression.getEncoding() == Compression.Encoding.GZIP) {
+                writeIntLe((int) crc.getValue());
+                writeIntLe((int) deflater.getBytesRead());
+            }
+        }
+
+        private void writeIntLe(int value) throws IOException {
+            out.write(value);
+            out.write(value >>> 8);
+            out.write(value >>> 16);
+            out.write(value >>> 24);
+        }
+
+        @Override
+        public void close() {
+            BufferPool.release(pending);
+            BufferPool.release(deflated);
+            if (deflater != null) {
+                compression.getEncoding().release(deflater);
+            }
+            pending = null;
+            deflated = null;
+            deflater = null;
+        }
+    }
+}
@@ -1,35 +1,42 @@
-package response;
-
-import dto.BaseDto;
-import dto.FriendsListDTO;
-
-import java.util.List;
-
-public class RestApiAppResponse<T extends BaseDto> {
-
-    public final boolean status;
-    public final List<T> data;
-    public final String message;
-
-    public RestApiAppResponse(boolean status, List<T> data, String message) {
-        this.status = status;
-        this.data = data;
-        this.message = message;
-    }
-
-    /*
-    // success with a list of friends
-    List<FriendsListDTO> payload = List.of(FriendsListDTO);
-    return sendResponse(200, payload, null);
-
-    // simple “OK” message
-    List<String> msg = List.of("Friend request sent");
-    return sendResponse(200, msg, null);
-
-    // error case
-    return sendResponse(404, List.of(), "Friend request not found");
-
-
-     */
-
-}
+package response;
+
+import dto.BaseDto;
+import dto.FriendsListDTO;
+
+public class RestApiAppResponse<T extends BaseDto> {
+
+    public final boolean status;
+    // a List, or StreamedData written while it is read
+    public final Iterable<T> data;
+    public final String message;
+    // where the next page starts for paged lists, left out of the json when null
+    public final String nextCursor;
+
+    public RestApiAppResponse(boolean status, Iterable<T> data, String message) {
+        this(status, data, message, null);
+    }
+
+    public RestApiAppResponse(boolean status, Iterable<T> data, String message,
+                              String nextCursor) {
+        this.status = status;
+        this.data = data;
+        this.message = message;
+        this.nextCursor = nextCursor;
+    }
+
+    /*
+    // success with a list of friends
+    List<FriendsListDTO> payload = List.of(FriendsListDTO);
+    return sendResponse(200, payload, null);
+
+    // simple “OK” message
+    List<String> msg = List.of("Friend request sent");
+    return sendResponse(200, msg, null);
+
+    // error case
+    return sendResponse(404, List.of(), "Friend request not found");
+
+
+     */
+
+}
@@ -1,11 +1,18 @@
-package response;
-
-public class StatusCodes {
-
-    public static final String UNAUTHORIZED = "401 Unauthorized";
-    public static final String OK = "200 OK";
-    public static final String SERVER_ERROR = "500 Internal Server Error";
-    public static final String BAD_REQUEST = "400 Bad Request";
-
-
-}
+package response;
+
+public class StatusCodes {
+
+    public static final String SWITCHING_PROTOCOLS = "101 Switching Protocols";
+    public static final String UNAUTHORIZED = "401 Unauthorized";
+    public static final String OK = "200 OK";
+    public static final String NO_CONTENT = "204 No Content";
+    public static final String SERVER_ERROR = "500 Internal Server Error";
+    public static final String BAD_REQUEST = "400 Bad Request";
+    public static final String NOT_FOUND = "404 Not Found";
+    public static final String METHOD_NOT_ALLOWED = "405 Method Not Allowed";
+    public static final String PAYLOAD_TOO_LARGE = "413 Payload Too Large";
+    public static final String UPGRADE_REQUIRED = "426 Upgrade Required";
+    public static final String SERVICE_UNAVAILABLE = "503 Service Unavailable";
+
+
+}
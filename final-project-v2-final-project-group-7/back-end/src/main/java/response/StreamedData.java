@@ -0,0 +1,109 @@
+package response;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Response data that is read once, element by element, while the response is written,
+// so a large result never sits in memory whole. It can only be iterated, once.
+// ResponseWriter closes it after writing, which releases whatever backs the stream,
+// a database cursor usually.
+public class StreamedData<T> implements Iterable<T>, AutoCloseable {
+
+    // Writes Iterable fields, RestApiAppResponse.data among them, as json arrays one
+    // element at a time, so StreamedData goes out without being collected first. Gson
+    // picks adapters by declared type, and has none of its own for Iterable.
+    public static final TypeAdapterFactory GSON_ADAPTER = new TypeAdapterFactory() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <A> TypeAdapter<A> create(Gson gson, TypeToken<A> type) {
+            Class<?> raw = type.getRawType();
+            if (raw != Iterable.class && raw != StreamedData.class) {
+                return null;
+            }
+            return (TypeAdapter<A>) new IterableAdapter(gson, elementType(type.getType()),
+                    raw == StreamedData.class);
+        }
+    };
+
+    private final Stream<T> stream;
+    private boolean consumed;
+
+    public StreamedData(Stream<T> stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        if (consumed) {
+            throw new IllegalStateException("Streamed data can only be read once");
+        }
+        consumed = true;
+        return stream.iterator();
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+
+    private static Type elementType(Type iterableType) {
+        return iterableType instanceof ParameterizedType parameterized
+                ? parameterized.getActualTypeArguments()[0]
+                : Object.class;
+    }
+
+    private static class IterableAdapter extends TypeAdapter<Iterable<?>> {
+
+        private final Gson gson;
+        private final Type elementType;
+        private final boolean streamed;
+
+        IterableAdapter(Gson gson, Type elementType, boolean streamed) {
+            this.gson = gson;
+            this.elementType = elementType;
+            this.streamed = streamed;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void write(JsonWriter out, Iterable<?> value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (Object element : value) {
+                if (element == null) {
+                    out.nullValue();
+                } else {
+                    // by runtime type, like gson does for collection elements
+                    ((TypeAdapter<Object>) gson.getAdapter(element.getClass()))
+                            .write(out, element);
+                }
+            }
+            out.endArray();
+        }
+
+        // read back into a List, or a StreamedData over one
+        @Override
+        public Iterable<?> read(JsonReader in) throws IOException {
+            List<?> list = (List<?>) gson.getAdapter(
+                    TypeToken.getParameterized(List.class, elementType)).read(in);
+            if (list == null || !streamed) {
+                return list;
+            }
+            return new StreamedData<>(list.stream());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+// Body of a response that keeps the connection open, like an event stream. The server
+// writes the head and then hands over the connection, which is closed once stream
+// returns. in holds anything the client sent after the request.
+public interface StreamingBody {
+
+    void stream(InputStream in, OutputStream out) throws IOException;
+}
@@ -0,0 +1,491 @@
+package server;
+
+import request.BufferPool;
+import request.MalformedRequestException;
+import request.ParsedRequest;
+import request.RequestFrame;
+import request.RequestFraming;
+import request.RequestTooLargeException;
+import response.ResponseBuilder;
+import response.StatusCodes;
+import response.StreamedData;
+import response.StreamingBody;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Selector based engine. A few event loop threads do all socket reads and writes,
+// complete requests are handed to the worker pool which runs the usual
+// HandlerFactory/BaseHandler pipeline through Server.renderResponse. Idle
+// connections only cost a selection key instead of a parked thread. Streaming
+// responses and bodies read from a cursor leave the loops and are written by a
+// virtual thread each.
+public class NioServer {
+
+    private final ServerConfig config;
+    private final ExecutorService workers;
+    // requests with the workers, bounded like Server.serve bounds its connections, so a
+    // full pool queue answers 503 instead of rejecting on a loop thread
+    private final Semaphore inFlight;
+    private final EventLoop[] loops;
+    private final AtomicInteger openConnections = new AtomicInteger();
+
+    public NioServer(ServerConfig config) throws IOException {
+        this.config = config;
+        ExecutorService executor = Server.createExecutor(config);
+        this.workers = executor != null ? executor : Executors.newSingleThreadExecutor();
+        this.inFlight = new Semaphore(Server.maxInFlight(config));
+        this.loops = new EventLoop[config.getEventLoops()];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop();
+        }
+    }
+
+    // accepts on the calling thread until the server channel is closed, new
+    // connections are spread round robin over the event loops
+    public void serve(ServerSocketChannel serverChannel) throws IOException {
+        for (int i = 0; i < loops.length; i++) {
+            Thread.ofPlatform().name("nio-loop-" + i).daemon().start(loops[i]);
+        }
+        serverChannel.configureBlocking(true);
+        int next = 0;
+        try {
+            while (serverChannel.isOpen()) {
+                SocketChannel channel;
+                try {
+                    channel = serverChannel.accept();
+                } catch (IOException e) {
+                    if (!serverChannel.isOpen()) {
+                        break;
+                    }
+                    throw e;
+                }
+                if (openConnections.incrementAndGet() > config.getMaxConnections()) {
+                    openConnections.decrementAndGet();
+                    channel.close();
+                    continue;
+                }
+                loops[next].register(channel);
+                next = (next + 1) % loops.length;
+            }
+        } finally {
+            for (EventLoop loop : loops) {
+                loop.shutdown();
+            }
+            workers.shutdown();
+        }
+    }
+
+    private static final class Connection {
+        final SocketChannel channel;
+        byte[] inbound = BufferPool.acquire();
+        int length;
+        ByteBuffer outbound;
+        // a request of this connection is with the workers or its response is being written
+        boolean busy;
+        boolean keepAlive;
+        int served;
+        long lastActive = System.nanoTime();
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        // false when the bytes would push the buffered input past limit
+        boolean append(ByteBuffer data, int limit) {
+            int count = data.remaining();
+            if (length + count > limit) {
+                return false;
+            }
+            if (length + count > inbound.length) {
+                byte[] grown = Arrays.copyOf(inbound, Math.min(limit,
+                        Math.max(inbound.length * 2, length + count)));
+                BufferPool.release(inbound);
+                inbound = grown;
+            }
+            data.get(inbound, length, count);
+            length += count;
+            return true;
+        }
+
+        // drops the first count bytes of the inbound buffer
+        void consume(int count) {
+            System.arraycopy(inbound, count, inbound, 0, length - count);
+            length -= count;
+        }
+
+        void skipLineBreaks() {
+            int skip = 0;
+            while (skip < length && (inbound[skip] == '\r' || inbound[skip] == '\n')) {
+                skip++;
+            }
+            if (skip > 0) {
+                consume(skip);
+            }
+        }
+    }
+
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(8192);
+
+        EventLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        // runs the task on this loop's thread
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        void register(SocketChannel channel) {
+            execute(() -> {
+                try {
+                    channel.configureBlocking(false);
+                    channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+                } catch (IOException e) {
+                    closeChannel(channel);
+                }
+            });
+        }
+
+        void shutdown() {
+            execute(() -> {
+                for (SelectionKey key : selector.keys()) {
+                    close(key);
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    System.out.println("Failed to close selector: " + e.getMessage());
+                }
+            });
+        }
+
+        @Override
+        public void run() {
+            long sweepInterval = TimeUnit.MILLISECONDS.toNanos(
+                    Math.min(1000, config.getIdleTimeoutMs()));
+            long lastSweep = System.nanoTime();
+            while (selector.isOpen()) {
+                try {
+                    selector.select(TimeUnit.NANOSECONDS.toMillis(sweepInterval));
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+                    if (!selector.isOpen()) {
+                        return;
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        handleKey(key);
+                    }
+                    long now = System.nanoTime();
+                    if (now - lastSweep >= sweepInterval) {
+                        closeIdle(now);
+                        lastSweep = now;
+                    }
+                } catch (ClosedSelectorException e) {
+                    return;
+                } catch (IOException | RuntimeException e) {
+                    // the loop carries on, its other connections still need it
+                    System.out.println("Event loop failed: " + e.getMessage());
+                }
+            }
+        }
+
+        private void handleKey(SelectionKey key) {
+            Connection conn = (Connection) key.attachment();
+            try {
+                if (key.isValid() && key.isReadable()) {
+                    read(key, conn);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    write(key, conn);
+                }
+            } catch (IOException e) {
+                close(key);
+            } catch (RuntimeException e) {
+                // only this connection is given up, not the loop
+                System.out.println("Connection failed: " + e.getMessage());
+                close(key);
+            }
+        }
+
+        // keep-alive connections waiting for their next request past the idle timeout
+        private void closeIdle(long now) {
+            long timeout = TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMs());
+            for (SelectionKey key : selector.keys()) {
+                Connection conn = (Connection) key.attachment();
+                if (!conn.busy && now - conn.lastActive > timeout) {
+                    close(key);
+                }
+            }
+        }
+
+        private void read(SelectionKey key, Connection conn) throws IOException {
+            readBuffer.clear();
+            int count = conn.channel.read(readBuffer);
+            if (count < 0) {
+                // client closed between requests, anything left is an incomplete request
+                close(key);
+                return;
+            }
+            conn.lastActive = System.nanoTime();
+            readBuffer.flip();
+            int limit = config.getMaxHeaderBytes() + config.getMaxBodyBytes()
+                    + BufferPool.BUFFER_SIZE;
+            if (!conn.append(readBuffer, limit)) {
+                // answered like the blocking engine does before it closes
+                conn.busy = true;
+                startWrite(key, conn, Server.renderError(StatusCodes.PAYLOAD_TOO_LARGE), false);
+                return;
+            }
+            nextRequest(key, conn);
+        }
+
+        // Hands the next complete request in the inbound buffer to the workers. Only one
+        // request per connection is in flight, so pipelined requests are answered in order.
+        private void nextRequest(SelectionKey key, Connection conn) {
+            conn.skipLineBreaks();
+            RequestFrame frame;
+            try {
+                frame = RequestFraming.frame(conn.inbound, 0, conn.length,
+                        config.getMaxHeaderBytes(), config.getMaxBodyBytes());
+            } catch (RequestTooLargeException e) {
+                conn.busy = true;
+                startWrite(key, conn, Server.renderError(StatusCodes.PAYLOAD_TOO_LARGE), false);
+                return;
+            } catch (MalformedRequestException e) {
+                conn.busy = true;
+                startWrite(key, conn, Server.renderError(StatusCodes.BAD_REQUEST), false);
+                return;
+            }
+            if (frame == null) {
+                key.interestOps(SelectionKey.OP_READ);
+                return;
+            }
+            conn.busy = true;
+            if (!inFlight.tryAcquire()) {
+                startWrite(key, conn, Server.renderError(StatusCodes.SERVICE_UNAVAILABLE), false);
+                return;
+            }
+            key.interestOps(0);
+            conn.served++;
+            byte[] input = frame.toBytes(conn.inbound, 0);
+            conn.consume(frame.length());
+            boolean lastAllowed = conn.served >= config.getMaxRequestsPerConnection();
+            try {
+                workers.execute(() -> process(key, conn, input, lastAllowed));
+            } catch (RejectedExecutionException e) {
+                // the permits keep a pool's queue from filling, so only after shutdown
+                inFlight.release();
+                startWrite(key, conn, Server.renderError(StatusCodes.SERVICE_UNAVAILABLE), false);
+            }
+        }
+
+        // runs on a worker, the response goes back to the loop to be written
+        private void process(SelectionKey key, Connection conn, byte[] input,
+                             boolean lastAllowed) {
+            try {
+                ParsedRequest request = Server.parse(input);
+                if (request == null) {
+                    byte[] error = Server.renderError(StatusCodes.BAD_REQUEST);
+                    execute(() -> startWrite(key, conn, error, false));
+                    return;
+                }
+                ResponseBuilder response = Server.handle(request);
+                if (response.getStreamingBody() != null) {
+                    byte[] head = Server.renderResponse(response, request, false, config);
+                    execute(() -> handOver(key, conn, head, response.getStreamingBody()));
+                    return;
+                }
+                boolean keepAlive = !lastAllowed && Server.wantsKeepAlive(request);
+                if (response.getBody() != null
+                        && response.getBody().data instanceof StreamedData<?>) {
+                    execute(() -> streamOut(key, conn, response, request, keepAlive));
+                    return;
+                }
+                byte[] bytes = Server.renderResponse(response, request, keepAlive, config);
+                execute(() -> startWrite(key, conn, bytes, keepAlive));
+            } catch (Exception e) {
+                System.out.println("Request failed: " + e.getMessage());
+                execute(() -> close(key));
+            } finally {
+                inFlight.release();
+            }
+        }
+
+        // A streaming response would hold a worker for as long as the client listens, so
+        // the connection leaves the selector and gets a virtual thread of its own.
+        private void handOver(SelectionKey key, Connection conn, byte[] head,
+                              StreamingBody body) {
+            SocketChannel channel = detach(key, conn);
+            if (channel == null) {
+                return;
+            }
+            // bytes the client sent after the request are read first
+            InputStream in = new SequenceInputStream(
+                    new ByteArrayInputStream(Arrays.copyOf(conn.inbound, conn.length)),
+                    Channels.newInputStream(channel));
+            BufferPool.release(conn.inbound);
+            conn.inbound = null;
+            Thread.ofVirtual().name("stream-", 0).start(() -> {
+                try {
+                    var out = new BufferedOutputStream(Channels.newOutputStream(channel));
+                    out.write(head);
+                    out.flush();
+                    body.stream(in, out);
+                } catch (IOException e) {
+                    // client went away
+                } finally {
+                    closeChannel(channel);
+                }
+            });
+        }
+
+        // A body read from a cursor is written as it is read, rendering it into memory
+        // first would hold the whole result twice. The write blocks on a slow client, so
+        // it leaves the loop like a streaming response and the connection comes back once
+        // the response is out.
+        private void streamOut(SelectionKey key, Connection conn, ResponseBuilder response,
+                               ParsedRequest request, boolean keepAlive) {
+            SocketChannel channel = detach(key, conn);
+            if (channel == null) {
+                ((StreamedData<?>) response.getBody().data).close();
+                return;
+            }
+            Thread.ofVirtual().name("stream-", 0).start(() -> {
+                boolean written = false;
+                try {
+                    var out = new BufferedOutputStream(Channels.newOutputStream(channel));
+                    Server.writeResponse(response, request, out, keepAlive, config);
+                    out.flush();
+                    channel.configureBlocking(false);
+                    written = true;
+                } catch (IOException e) {
+                    // client went away
+                }
+                if (written && keepAlive) {
+                    execute(() -> reattach(conn));
+                } else {
+                    execute(() -> {
+                        BufferPool.release(conn.inbound);
+                        conn.inbound = null;
+                        closeChannel(channel);
+                    });
+                }
+            });
+        }
+
+        // takes the connection off the selector and makes its channel blocking, null when
+        // it is already closed
+        private SocketChannel detach(SelectionKey key, Connection conn) {
+            if (!key.isValid()) {
+                return null;
+            }
+            key.cancel();
+            try {
+                // the cancelled key has to be flushed before the channel may block again
+                selector.selectNow();
+                conn.channel.configureBlocking(true);
+            } catch (IOException e) {
+                closeChannel(conn.channel);
+                return null;
+            }
+            return conn.channel;
+        }
+
+        // back on the selector after streamOut, with any pipelined request still buffered
+        private void reattach(Connection conn) {
+            SelectionKey key;
+            try {
+                key = conn.channel.register(selector, SelectionKey.OP_READ, conn);
+            } catch (IOException e) {
+                BufferPool.release(conn.inbound);
+                conn.inbound = null;
+                closeChannel(conn.channel);
+                return;
+            }
+            conn.busy = false;
+            conn.lastActive = System.nanoTime();
+            nextRequest(key, conn);
+        }
+
+        private void startWrite(SelectionKey key, Connection conn, byte[] response,
+                                boolean keepAlive) {
+            if (!key.isValid()) {
+                return;
+            }
+            conn.outbound = ByteBuffer.wrap(response);
+            conn.keepAlive = keepAlive;
+            try {
+                write(key, conn);
+                if (key.isValid() && conn.outbound != null) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                }
+            } catch (IOException e) {
+                close(key);
+            }
+        }
+
+        private void write(SelectionKey key, Connection conn) throws IOException {
+            conn.channel.write(conn.outbound);
+            conn.lastActive = System.nanoTime();
+            if (conn.outbound.hasRemaining()) {
+                return;
+            }
+            conn.outbound = null;
+            if (!conn.keepAlive) {
+                close(key);
+                return;
+            }
+            conn.busy = false;
+            nextRequest(key, conn);
+        }
+
+        private void close(SelectionKey key) {
+            key.cancel();
+            Connection conn = (Connection) key.attachment();
+            BufferPool.release(conn.inbound);
+            conn.inbound = null;
+            closeChannel(conn.channel);
+        }
+
+        private void closeChannel(SocketChannel channel) {
+            if (channel.isOpen()) {
+                openConnections.decrementAndGet();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.out.println("Failed to close connection: " + e.getMessage());
+            }
+        }
+    }
+}
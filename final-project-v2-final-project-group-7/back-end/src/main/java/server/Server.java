@@ -1,58 +1,246 @@
 package server;
 
+import com.mongodb.MongoException;
+import dao.IndexManager;
+import dao.MongoConnection;
 import handler.BaseHandler;
 import handler.HandlerFactory;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import request.CustomParser;
+import request.HttpRequestReader;
+import request.MalformedRequestException;
 import request.ParsedRequest;
+import request.RequestTooLargeException;
+import response.Compression;
 import response.CustomHttpResponse;
+import response.ResponseBuilder;
+import response.ResponseWriter;
+import response.StatusCodes;
 
 public class Server {
 
     public static void main(String[] args) throws IOException {
-        ServerSocket serverSocket;
-        Socket socket = null;
-        serverSocket = new ServerSocket(1299);
-        System.out.println("Opened socket " + 1299);
-        while (true) {
-            // keeps listening for new clients, one at a time
-            socket = serverSocket.accept(); // waits for client here
-
-            InputStream stream = socket.getInputStream();
-            byte[] b = new byte[1024 * 30];
-            stream.read(b);
-            String input = new String(b).trim();
-            System.out.println(input);
-
-            BufferedOutputStream out = new BufferedOutputStream(socket.getOutputStream());
-            PrintWriter writer = new PrintWriter(out, true);  // char output to the client
-
-            // HTTP Response
-            if (!input.isEmpty()) {
-                CustomHttpResponse response = processRequest(input);
-                writer.println(response);
-            } else {
-                writer.println("HTTP/1.1 200 OK");
-                writer.println("Server: TEST");
-                writer.println("Connection: close");
-                writer.println("Content-type: text/html");
-                writer.println("");
+        ServerConfig config = ServerConfig.load();
+        try {
+            MongoConnection.warmUp();
+        } catch (MongoException e) {
+            System.out.println("Starting without a database connection: " + e.getMessage());
+        }
+        // requests are served while the indexes build
+        Thread.ofVirtual().name("index-bootstrap").start(() -> {
+            try {
+                IndexManager.ensureIndexes(MongoConnection.getDatabase());
+            } catch (MongoException e) {
+                System.out.println("Skipped the index check: " + e.getMessage());
             }
-            socket.close();
+        });
+        if (config.getEngine() == ServerConfig.Engine.NIO) {
+            ServerSocketChannel channel = ServerSocketChannel.open();
+            channel.bind(new InetSocketAddress(config.getPort()));
+            System.out.println("Opened socket " + config.getPort() + " (nio engine)");
+            new NioServer(config).serve(channel);
+            return;
         }
+        ServerSocket serverSocket = new ServerSocket(config.getPort());
+        System.out.println("Opened socket " + config.getPort()
+                + " (" + config.getMode() + " mode)");
+        serve(serverSocket, config);
+    }
+
+    // keeps listening for new clients until the server socket is closed
+    public static void serve(ServerSocket serverSocket, ServerConfig config) throws IOException {
+        ExecutorService executor = createExecutor(config);
+        // caps how many connections may be in flight so a burst can't exhaust memory
+        Semaphore permits = new Semaphore(maxInFlight(config));
+        try {
+            while (!serverSocket.isClosed()) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept(); // waits for client here
+                } catch (SocketException e) {
+                    if (serverSocket.isClosed()) {
+                        break;
+                    }
+                    throw e;
+                }
+                if (executor == null) {
+                    handleConnection(socket, config);
+                    continue;
+                }
+                permits.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        handleConnection(socket, config);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    // what the executor can hold without rejecting, running and queued
+    static int maxInFlight(ServerConfig config) {
+        return config.getMode() == ServerConfig.ExecutionMode.POOL
+                ? config.getPoolSize() + config.getQueueSize()
+                : config.getMaxConnections();
+    }
+
+    static ExecutorService createExecutor(ServerConfig config) {
+        switch (config.getMode()) {
+            case VIRTUAL:
+                return Executors.newThreadPerTaskExecutor(
+                        Thread.ofVirtual().name("conn-", 0).factory());
+            case POOL:
+                return new ThreadPoolExecutor(config.getPoolSize(), config.getPoolSize(),
+                        0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(config.getQueueSize()),
+                        Thread.ofPlatform().name("conn-", 0).factory());
+            default:
+                return null;
+        }
+    }
+
+    // Answers requests on the socket until the client or the keep-alive limits close it.
+    // Pipelined requests already sitting in the input buffer are answered in order
+    // and flushed together.
+    static void handleConnection(Socket socket, ServerConfig config) {
+        try (socket; HttpRequestReader reader = new HttpRequestReader(socket.getInputStream(),
+                config.getMaxHeaderBytes(), config.getMaxBodyBytes())) {
+            socket.setSoTimeout(config.getIdleTimeoutMs());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            int served = 0;
+            boolean keepAlive = true;
+            while (keepAlive) {
+                byte[] input;
+                try {
+                    input = reader.readRequest();
+                } catch (RequestTooLargeException e) {
+                    out.write(renderError(StatusCodes.PAYLOAD_TOO_LARGE));
+                    out.flush();
+                    break;
+                } catch (MalformedRequestException e) {
+                    out.write(renderError(StatusCodes.BAD_REQUEST));
+                    out.flush();
+                    break;
+                }
+                if (input == null) {
+                    break;
+                }
+                served++;
+                ParsedRequest request = parse(input);
+                if (request == null) {
+                    out.write(renderError(StatusCodes.BAD_REQUEST));
+                    out.flush();
+                    break;
+                }
+                keepAlive = served < config.getMaxRequestsPerConnection()
+                        && wantsKeepAlive(request);
+                ResponseBuilder response = handle(request);
+                if (response.getStreamingBody() != null) {
+                    ResponseWriter.write(response, out, false, false);
+                    out.flush();
+                    // the body decides how long the connection lives
+                    socket.setSoTimeout(0);
+                    response.getStreamingBody().stream(reader.remainingInput(), out);
+                    break;
+                }
+                writeResponse(response, request, out, keepAlive, config);
+                if (!keepAlive || !reader.hasBufferedInput()) {
+                    out.flush();
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            // idle keep-alive connection, just close it
+        } catch (Exception e) {
+            System.out.println("Connection failed: " + e.getMessage());
+        }
+    }
+
+    // null when the request line can't be read, the caller answers 400 and closes
+    static ParsedRequest parse(byte[] input) {
+        try {
+            return CustomParser.parse(input, 0, input.length);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // HTTP/1.1 keeps the connection unless asked to close, HTTP/1.0 only when asked to keep it
+    static boolean wantsKeepAlive(ParsedRequest request) {
+        String connection = request.getHeaderValue("Connection");
+        if (connection != null && connection.equalsIgnoreCase("close")) {
+            return false;
+        }
+        if ("HTTP/1.0".equals(request.getVersion())) {
+            return connection != null && connection.equalsIgnoreCase("keep-alive");
+        }
+        return true;
+    }
+
+    static ResponseBuilder handle(ParsedRequest request) {
+        return HandlerFactory.getHandler(request).handleRequest(request);
+    }
+
+    // Raw response bytes for a handled request. Shared by both engines so they answer
+    // with exactly the same bytes.
+    static byte[] renderResponse(ResponseBuilder response, ParsedRequest request,
+                                 boolean keepAlive, ServerConfig config) throws IOException {
+        var out = new ByteArrayOutputStream();
+        writeResponse(response, request, out, keepAlive, config);
+        return out.toByteArray();
+    }
+
+    // streams the handler's response into out, the caller decides when to flush
+    static void writeResponse(ResponseBuilder response, ParsedRequest request, OutputStream out,
+                              boolean keepAlive, ServerConfig config) throws IOException {
+        Compression compression = Compression.negotiate(request.getHeaderValue("Accept-Encoding"),
+                config.getCompressionLevel(), config.getCompressionMinBytes());
+        ResponseWriter.write(response, out, keepAlive, !"HTTP/1.0".equals(request.getVersion()),
+                compression);
+    }
+
+    // response for a request that never reached a handler, the connection is closed after it
+    static byte[] renderError(String status) {
+        var out = new ByteArrayOutputStream();
+        try {
+            ResponseWriter.write(new ResponseBuilder().setStatus(status), out, false, false);
+        } catch (IOException e) {
+            // writing to memory doesn't fail
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
     }
 
     // Assume the http server feeds the entire raw http request here
     // Response is a raw http response string
     public static CustomHttpResponse processRequest(String requestString) {
-        ParsedRequest request = CustomParser.parse(requestString);
+        return processRequest(CustomParser.parse(requestString));
+    }
+
+    public static CustomHttpResponse processRequest(ParsedRequest request) {
         BaseHandler handler = HandlerFactory.getHandler(request);
         CustomHttpResponse response = handler.handleRequest(request).build();
         if (response.body != null && !response.body.isEmpty()) {
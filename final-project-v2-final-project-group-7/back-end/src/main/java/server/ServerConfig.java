@@ -0,0 +1,193 @@
+package server;
+
+// Startup settings for the http server. Every value can be given as a system
+// property (-Dserver.mode=virtual) or as an environment variable (SERVER_MODE=virtual),
+// the system property wins when both are present.
+public class ServerConfig {
+
+    public enum ExecutionMode {
+        // accept thread runs every request itself, one client at a time
+        SERIAL,
+        // every accepted connection gets its own virtual thread
+        VIRTUAL,
+        // connections are handed to a fixed size pool of platform threads
+        POOL
+    }
+
+    public enum Engine {
+        // java.net sockets, one thread per connection
+        BLOCKING,
+        // selector event loops that hand complete requests to a worker pool
+        NIO
+    }
+
+    private int port = 1299;
+    private Engine engine = Engine.BLOCKING;
+    private ExecutionMode mode = ExecutionMode.VIRTUAL;
+    private int poolSize = Runtime.getRuntime().availableProcessors() * 4;
+    private int queueSize = 1024;
+    private int maxConnections = 10000;
+    private int eventLoops = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int idleTimeoutMs = 15000;
+    private int maxRequestsPerConnection = 100;
+    private int maxHeaderBytes = 16 * 1024;
+    private int maxBodyBytes = 1024 * 1024;
+    private int compressionLevel = 6;
+    private int compressionMinBytes = 1024;
+
+    public static ServerConfig load() {
+        var config = new ServerConfig();
+        return config.setPort(getInt("server.port", config.port))
+                .setEngine(Engine.valueOf(
+                        getString("server.engine", config.engine.name()).toUpperCase()))
+                .setMode(ExecutionMode.valueOf(
+                        getString("server.mode", config.mode.name()).toUpperCase()))
+                .setPoolSize(getInt("server.poolSize", config.poolSize))
+                .setQueueSize(getInt("server.queueSize", config.queueSize))
+                .setMaxConnections(getInt("server.maxConnections", config.maxConnections))
+                .setEventLoops(getInt("server.eventLoops", config.eventLoops))
+                .setIdleTimeoutMs(getInt("server.idleTimeoutMs", config.idleTimeoutMs))
+                .setMaxRequestsPerConnection(getInt("server.maxRequestsPerConnection",
+                        config.maxRequestsPerConnection))
+                .setMaxHeaderBytes(getInt("server.maxHeaderBytes", config.maxHeaderBytes))
+                .setMaxBodyBytes(getInt("server.maxBodyBytes", config.maxBodyBytes))
+                .setCompressionLevel(getInt("server.compressionLevel", config.compressionLevel))
+                .setCompressionMinBytes(getInt("server.compressionMinBytes",
+                        config.compressionMinBytes));
+    }
+
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = System.getenv(key.replaceAll("([a-z])([A-Z])", "$1_$2")
+                    .replace('.', '_')
+                    .toUpperCase());
+        }
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        return Integer.parseInt(getString(key, String.valueOf(defaultValue)));
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public ServerConfig setPort(int port) {
+        this.port = port;
+        return this;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public ServerConfig setEngine(Engine engine) {
+        this.engine = engine;
+        return this;
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    public ServerConfig setMode(ExecutionMode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public ServerConfig setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public ServerConfig setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public ServerConfig setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+    public int getEventLoops() {
+        return eventLoops;
+    }
+
+    public ServerConfig setEventLoops(int eventLoops) {
+        this.eventLoops = eventLoops;
+        return this;
+    }
+
+    public int getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public ServerConfig setIdleTimeoutMs(int idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+        return this;
+    }
+
+    // 1 turns keep-alive off, every response then closes the connection
+    public int getMaxRequestsPerConnection() {
+        return maxRequestsPerConnection;
+    }
+
+    public ServerConfig setMaxRequestsPerConnection(int maxRequestsPerConnection) {
+        this.maxRequestsPerConnection = maxRequestsPerConnection;
+        return this;
+    }
+
+    public int getMaxHeaderBytes() {
+        return maxHeaderBytes;
+    }
+
+    public ServerConfig setMaxHeaderBytes(int maxHeaderBytes) {
+        this.maxHeaderBytes = maxHeaderBytes;
+        return this;
+    }
+
+    // requests with a larger body are answered with 413 and the connection is closed
+    public int getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    public ServerConfig setMaxBodyBytes(int maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+        return this;
+    }
+
+    // deflate level 1-9 for gzip/deflate responses, 0 turns compression off
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public ServerConfig setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    // smaller bodies aren't worth compressing, capped at the 8KB response buffer
+    public int getCompressionMinBytes() {
+        return compressionMinBytes;
+    }
+
+    public ServerConfig setCompressionMinBytes(int compressionMinBytes) {
+        this.compressionMinBytes = compressionMinBytes;
+        return this;
+    }
+}
@@ -0,0 +1,270 @@
+package websocket;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Server side of an RFC 6455 connection after the upgrade. One thread reads messages,
+// any thread may send; frames are written whole under a lock so they never interleave.
+// Fragmented messages are joined, pings are answered while reading and a close frame
+// is echoed before the connection ends.
+public class WebSocketConnection {
+
+    public static final int NORMAL_CLOSURE = 1000;
+    public static final int GOING_AWAY = 1001;
+    public static final int PROTOCOL_ERROR = 1002;
+    public static final int UNSUPPORTED_DATA = 1003;
+    public static final int INVALID_PAYLOAD = 1007;
+    public static final int POLICY_VIOLATION = 1008;
+    public static final int MESSAGE_TOO_BIG = 1009;
+
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private static final int CONTINUATION = 0x0;
+    private static final int TEXT = 0x1;
+    private static final int BINARY = 0x2;
+    private static final int CLOSE = 0x8;
+    private static final int PING = 0x9;
+    private static final int PONG = 0xA;
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final int maxMessageBytes;
+    // a lock rather than synchronized, a virtual thread blocked on a socket write while
+    // holding a monitor would pin its carrier thread on JDK 21
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final byte[] header = new byte[14];
+    private boolean closeSent;
+    private volatile long lastReceived = System.nanoTime();
+
+    public WebSocketConnection(InputStream in, OutputStream out, int maxMessageBytes) {
+        this.in = in;
+        this.out = out;
+        this.maxMessageBytes = maxMessageBytes;
+    }
+
+    // Sec-WebSocket-Accept for the client's Sec-WebSocket-Key
+    public static String acceptKey(String key) {
+        try {
+            byte[] sha1 = MessageDigest.getInstance("SHA-1")
+                    .digest((key + ACCEPT_GUID).getBytes(StandardCharsets.ISO_8859_1));
+            return Base64.getEncoder().encodeToString(sha1);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is always available", e);
+        }
+    }
+
+    // Next complete text message, null once the client closed the connection. Protocol
+    // errors close the connection with their code before they are thrown.
+    public String readText() throws IOException {
+        try {
+            return readMessage();
+        } catch (WebSocketProtocolException e) {
+            close(e.closeCode, e.getMessage());
+            throw e;
+        }
+    }
+
+    private String readMessage() throws IOException {
+        var message = new ByteArrayOutputStream();
+        int messageOpcode = -1;
+        while (true) {
+            int b0 = in.read();
+            if (b0 < 0) {
+                return null;
+            }
+            int b1 = readByteStrict();
+            boolean fin = (b0 & 0x80) != 0;
+            int opcode = b0 & 0x0F;
+            if ((b0 & 0x70) != 0) {
+                throw new WebSocketProtocolException(PROTOCOL_ERROR, "No extension was agreed");
+            }
+            if ((b1 & 0x80) == 0) {
+                throw new WebSocketProtocolException(PROTOCOL_ERROR,
+                        "Client frames must be masked");
+            }
+            long length = readLength(b1 & 0x7F);
+            boolean control = opcode >= CLOSE;
+            if (control && (!fin || length > 125)) {
+                throw new WebSocketProtocolException(PROTOCOL_ERROR, "Bad control frame");
+            }
+            if (!control && message.size() + length > maxMessageBytes) {
+                throw new WebSocketProtocolException(MESSAGE_TOO_BIG, "Message too big");
+            }
+            byte[] payload = readPayload((int) length);
+            lastReceived = System.nanoTime();
+            switch (opcode) {
+                case PING -> {
+                    if (!isCloseSent()) {
+                        send(PONG, payload);
+                    }
+                }
+                case PONG -> {
+                    // lastReceived is all a pong is good for
+                }
+                case CLOSE -> {
+                    int code = payload.length >= 2
+                            ? ((payload[0] & 0xFF) << 8) | (payload[1] & 0xFF)
+                            : NORMAL_CLOSURE;
+                    close(code, "");
+                    return null;
+                }
+                case TEXT, BINARY, CONTINUATION -> {
+                    if ((opcode == CONTINUATION) != (messageOpcode >= 0)) {
+                        throw new WebSocketProtocolException(PROTOCOL_ERROR,
+                                "Unexpected frame inside a fragmented message");
+                    }
+                    if (messageOpcode < 0) {
+                        messageOpcode = opcode;
+                    }
+                    message.write(payload);
+                    if (fin) {
+                        if (messageOpcode == BINARY) {
+                            throw new WebSocketProtocolException(UNSUPPORTED_DATA,
+                                    "Only text messages are accepted");
+                        }
+                        return decode(message.toByteArray());
+                    }
+                }
+                default -> throw new WebSocketProtocolException(PROTOCOL_ERROR,
+                        "Unknown opcode " + opcode);
+            }
+        }
+    }
+
+    public void sendText(String text) throws IOException {
+        send(TEXT, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void sendPing() throws IOException {
+        send(PING, new byte[0]);
+    }
+
+    // sends the close frame once, later calls do nothing
+    public void close(int code, String reason) throws IOException {
+        byte[] text = reason.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = new byte[2 + Math.min(text.length, 123)];
+        payload[0] = (byte) (code >> 8);
+        payload[1] = (byte) code;
+        System.arraycopy(text, 0, payload, 2, payload.length - 2);
+        writeLock.lock();
+        try {
+            if (closeSent) {
+                return;
+            }
+            closeSent = true;
+            writeFrame(CLOSE, payload);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isCloseSent() {
+        writeLock.lock();
+        try {
+            return closeSent;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // System.nanoTime() of the last frame from the client
+    public long getLastReceived() {
+        return lastReceived;
+    }
+
+    private void send(int opcode, byte[] payload) throws IOException {
+        writeLock.lock();
+        try {
+            if (closeSent) {
+                throw new IOException("Connection is closing");
+            }
+            writeFrame(opcode, payload);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void writeFrame(int opcode, byte[] payload) throws IOException {
+        int length = payload.length;
+        int headerLength;
+        header[0] = (byte) (0x80 | opcode);
+        if (length <= 125) {
+            header[1] = (byte) length;
+            headerLength = 2;
+        } else if (length <= 0xFFFF) {
+            header[1] = 126;
+            header[2] = (byte) (length >> 8);
+            header[3] = (byte) length;
+            headerLength = 4;
+        } else {
+            header[1] = 127;
+            for (int i = 0; i < 8; i++) {
+                header[2 + i] = (byte) ((long) length >> (56 - 8 * i));
+            }
+            headerLength = 10;
+        }
+        out.write(header, 0, headerLength);
+        out.write(payload);
+        out.flush();
+    }
+
+    private long readLength(int length) throws IOException {
+        if (length == 126) {
+            return ((long) readByteStrict() << 8) | readByteStrict();
+        }
+        if (length == 127) {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByteStrict();
+            }
+            if (value < 0) {
+                throw new WebSocketProtocolException(PROTOCOL_ERROR, "Bad frame length");
+            }
+            return value;
+        }
+        return length;
+    }
+
+    private byte[] readPayload(int length) throws IOException {
+        byte[] mask = in.readNBytes(4);
+        byte[] payload = in.readNBytes(length);
+        if (mask.length < 4 || payload.length < length) {
+            throw new EOFException("Connection closed in the middle of a frame");
+        }
+        for (int i = 0; i < length; i++) {
+            payload[i] ^= mask[i & 3];
+        }
+        return payload;
+    }
+
+    private int readByteStrict() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Connection closed in the middle of a frame");
+        }
+        return b;
+    }
+
+    private static String decode(byte[] bytes) throws WebSocketProtocolException {
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes))
+                    .toString();
+        } catch (CharacterCodingException e) {
+            throw new WebSocketProtocolException(INVALID_PAYLOAD, "Text is not valid UTF-8");
+        }
+    }
+}
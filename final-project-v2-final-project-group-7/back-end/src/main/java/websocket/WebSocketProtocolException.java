@@ -0,0 +1,14 @@
+package websocket;
+
+import java.io.IOException;
+
+// The peer broke the protocol, the connection is closed with closeCode
+public class WebSocketProtocolException extends IOException {
+
+    public final int closeCode;
+
+    public WebSocketProtocolException(int closeCode, String message) {
+        super(message);
+        this.closeCode = closeCode;
+    }
+}
@@ -34,6 +34,7 @@ public class FriendsHandlerTests {
 
         ParsedRequest request = new ParsedRequest();
         request.setPath("/users/123/friends");
+        request.setPathVariable("userId", "123");
         request.setMethod("GET");
 
         // Act
@@ -48,6 +49,22 @@ public class FriendsHandlerTests {
                 .findByUserIdAndStatus("123", "ACCEPTED");
     }
 
+    @Test
+    public void getFriends_rejectsNonNumericUserId() {
+        FriendshipDao mockFriendshipDao = Mockito.mock(FriendshipDao.class);
+        var handler = new FriendsHandler(mockFriendshipDao, Mockito.mock(UserDao.class));
+
+        ParsedRequest request = new ParsedRequest();
+        request.setPath("/users/alice/friends");
+        request.setPathVariable("userId", "alice");
+        request.setMethod("GET");
+
+        CustomHttpResponse res = handler.handleRequest(request).build();
+
+        Assert.assertEquals(res.status, StatusCodes.BAD_REQUEST);
+        Mockito.verifyNoInteractions(mockFriendshipDao);
+    }
+
     @Test
     public void sendFriendRequest_insertsWhenNotExisting() {
         // Arrange
@@ -61,6 +78,8 @@ public class FriendsHandlerTests {
 
         ParsedRequest request = new ParsedRequest();
         request.setPath("/users/10/friends/20");
+        request.setPathVariable("userId", "10");
+        request.setPathVariable("friendId", "20");
         request.setMethod("POST");
 
         // Act
@@ -95,6 +114,8 @@ public class FriendsHandlerTests {
 
         ParsedRequest request = new ParsedRequest();
         request.setPath("/users/10/friends/20/accept");
+        request.setPathVariable("userId", "10");
+        request.setPathVariable("friendId", "20");
         request.setMethod("PUT");
 
         // Act
@@ -121,6 +142,8 @@ public class FriendsHandlerTests {
 
         ParsedRequest request = new ParsedRequest();
         request.setPath("/users/5/friends/8");
+        request.setPathVariable("userId", "5");
+        request.setPathVariable("friendId", "8");
         request.setMethod("DELETE");
 
         // Act
@@ -128,7 +151,7 @@ public class FriendsHandlerTests {
         CustomHttpResponse res = builder.build();
 
         // Assert
-        Assert.assertEquals(res.status, "204");
+        Assert.assertEquals(res.status, StatusCodes.NO_CONTENT);
 
         Mockito.verify(mockFriendshipDao, Mockito.times(1))
                 .deleteByUserIdAndFriendId("5", "8");
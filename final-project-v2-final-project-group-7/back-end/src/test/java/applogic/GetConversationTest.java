@@ -1,55 +1,148 @@
-package applogic;
-
-import dto.ConversationDto;
-import dto.MessageDto;
-import dto.UserDto;
-import handler.GsonTool;
-import handler.HandlerFactory;
-import org.mockito.Mockito;
-import org.testng.Assert;
-import org.testng.annotations.Test;
-import request.ParsedRequest;
-import response.StatusCodes;
-import util.MockTestUtils;
-
-import java.util.ArrayList;
-import java.util.List;
-
-public class GetConversationTest {
-
-    @Test(singleThreaded = true)
-    public void getConversationTest() {
-        var testUtils = new MockTestUtils();
-        var user = new UserDto();
-        user.setUserName(String.valueOf(Math.random()));
-        ArrayList<UserDto> userReturnList = new ArrayList<>();
-        userReturnList.add(user);
-
-        String conversationId = String.valueOf(Math.random());
-
-        ParsedRequest parsedRequest = new ParsedRequest();
-        parsedRequest.setPath("/getConversation");
-        parsedRequest.setQueryParam("conversationId", conversationId);
-
-        var auth = testUtils.createLogin(user.getUserName());
-
-        parsedRequest.setBody(GsonTool.GSON.toJson(user));
-        parsedRequest.setCookieValue("auth", auth.getHash());
-        var handler = HandlerFactory.getHandler(parsedRequest);
-        Mockito.when(testUtils.mockUserDao.query("userName", user.getUserName()))
-                .thenReturn(userReturnList);
-        List<MessageDto> messageDtos = new ArrayList<>();
-        var message = new MessageDto();
-        messageDtos.add(message);
-        Mockito.when(testUtils.mockMessageDao.query("conversationId", conversationId))
-                .thenReturn(messageDtos);
-        var builder = handler.handleRequest(parsedRequest);
-        var res = builder.build();
-
-        Assert.assertEquals(res.status, StatusCodes.OK);
-        Mockito.verify(testUtils.mockAuthDao).query("hash", auth.getHash());
-
-        Assert.assertTrue(builder.getBody().status);
-        Assert.assertEquals(builder.getBody().data.getFirst(), message);
-    }
-}
+package applogic;
+
+import dao.AuthDao;
+import dao.MessageDao;
+import dto.AuthDto;
+import dto.ConversationDto;
+import dto.MessageDto;
+import dto.UserDto;
+import events.MessageHub;
+import handler.GsonTool;
+import handler.HandlerFactory;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import request.ParsedRequest;
+import response.StatusCodes;
+import util.MockTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class GetConversationTest {
+
+    @Test(singleThreaded = true)
+    public void getConversationTest() {
+        var testUtils = new MockTestUtils();
+        var user = new UserDto();
+        user.setUserName(String.valueOf(Math.random()));
+        ArrayList<UserDto> userReturnList = new ArrayList<>();
+        userReturnList.add(user);
+
+        String conversationId = String.valueOf(Math.random());
+
+        ParsedRequest parsedRequest = new ParsedRequest();
+        parsedRequest.setPath("/getConversation");
+        parsedRequest.setQueryParam("conversationId", conversationId);
+
+        var auth = testUtils.createLogin(user.getUserName());
+
+        parsedRequest.setBody(GsonTool.GSON.toJson(user));
+        parsedRequest.setCookieValue("auth", auth.getHash());
+        var handler = HandlerFactory.getHandler(parsedRequest);
+        Mockito.when(testUtils.mockUserDao.query("userName", user.getUserName()))
+                .thenReturn(userReturnList);
+        List<MessageDto> messageDtos = new ArrayList<>();
+        var message = new MessageDto();
+        messageDtos.add(message);
+        Mockito.when(testUtils.mockMessageDao.streamConversation(conversationId))
+                .thenReturn(messageDtos.stream());
+        var builder = handler.handleRequest(parsedRequest);
+        var res = builder.build();
+
+        Assert.assertEquals(res.status, StatusCodes.OK);
+        Mockito.verify(testUtils.mockAuthDao).querySession(auth.getHash());
+
+        Assert.assertTrue(builder.getBody().status);
+        Assert.assertTrue(res.body.contains(GsonTool.GSON.toJson(message)));
+    }
+
+    @Test(singleThreaded = true, timeOut = 10000)
+    public void longPollWaitsForNewMessage() throws InterruptedException {
+        String userName = String.valueOf(Math.random());
+        String hash = login(userName);
+        String conversationId = userName + "_bob";
+
+        ParsedRequest parsedRequest = new ParsedRequest();
+        parsedRequest.setPath("/getConversation");
+        parsedRequest.setQueryParam("conversationId", conversationId);
+        parsedRequest.setQueryParam("since", "1700000000000");
+        parsedRequest.setQueryParam("waitMs", "5000");
+        parsedRequest.setCookieValue("auth", hash);
+
+        var message = new MessageDto();
+        message.setFromId("bob");
+        message.setToId(userName);
+        message.setConversationId(conversationId);
+        Thread sender = Thread.ofVirtual().start(() -> {
+            var hub = MessageHub.getInstance();
+            while (hub.subscriberCount(userName) == 0) {
+                Thread.onSpinWait();
+            }
+            hub.publish(message);
+        });
+        var builder = HandlerFactory.getHandler(parsedRequest).handleRequest(parsedRequest);
+        sender.join();
+
+        Mockito.verify(MessageDao.getInstance()).querySince(conversationId, "1700000000000");
+        Assert.assertEquals(builder.getStatus(), StatusCodes.OK);
+        Assert.assertEquals(builder.getBody().data, List.of(message));
+        Assert.assertEquals(MessageHub.getInstance().subscriberCount(userName), 0);
+    }
+
+    @Test(singleThreaded = true)
+    public void sinceWithoutWaitAnswersRightAway() {
+        String userName = String.valueOf(Math.random());
+        String hash = login(userName);
+
+        ParsedRequest parsedRequest = new ParsedRequest();
+        parsedRequest.setPath("/getConversation");
+        parsedRequest.setQueryParam("conversationId", "a_b");
+        parsedRequest.setQueryParam("since", "not a cursor");
+        parsedRequest.setCookieValue("auth", hash);
+        Mockito.when(MessageDao.getInstance().querySince("a_b", "not a cursor"))
+                .thenThrow(new NumberFormatException());
+
+        var builder = HandlerFactory.getHandler(parsedRequest).handleRequest(parsedRequest);
+
+        Assert.assertEquals(builder.getStatus(), StatusCodes.BAD_REQUEST);
+        Assert.assertFalse(builder.getBody().status);
+    }
+
+    @Test(singleThreaded = true)
+    public void pagesWithCappedLimitAndNextCursor() {
+        String hash = login(String.valueOf(Math.random()));
+
+        ParsedRequest parsedRequest = new ParsedRequest();
+        parsedRequest.setPath("/getConversation");
+        parsedRequest.setQueryParam("conversationId", "a_b");
+        parsedRequest.setQueryParam("before", "1700000000000_0123456789abcdef01234567");
+        parsedRequest.setQueryParam("limit", "5000");
+        parsedRequest.setCookieValue("auth", hash);
+        var message = new MessageDto();
+        Mockito.when(MessageDao.getInstance().queryPage("a_b",
+                        "1700000000000_0123456789abcdef01234567", null, 200))
+                .thenReturn(new MessageDao.Page(List.of(message), "older"));
+
+        var builder = HandlerFactory.getHandler(parsedRequest).handleRequest(parsedRequest);
+
+        Assert.assertEquals(builder.getStatus(), StatusCodes.OK);
+        Assert.assertEquals(builder.getBody().data, List.of(message));
+        Assert.assertEquals(builder.getBody().nextCursor, "older");
+
+        parsedRequest.setQueryParam("after", "1700000000000_0123456789abcdef01234567");
+        builder = HandlerFactory.getHandler(parsedRequest).handleRequest(parsedRequest);
+        Assert.assertEquals(builder.getStatus(), StatusCodes.BAD_REQUEST);
+    }
+
+    // stubs whichever dao instances are current, other test classes may have cached theirs
+    private static String login(String userName) {
+        new MockTestUtils();
+        var authEntry = new AuthDto();
+        authEntry.setHash(String.valueOf(Math.random()));
+        authEntry.setUserName(userName);
+        Mockito.doReturn(List.of(authEntry)).when(AuthDao.getInstance())
+                .querySession(authEntry.getHash());
+        return authEntry.getHash();
+    }
+}
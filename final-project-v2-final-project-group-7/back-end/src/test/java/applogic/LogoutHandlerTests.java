@@ -0,0 +1,68 @@
+package applogic;
+
+import auth.SessionTokens;
+import handler.HandlerFactory;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import request.ParsedRequest;
+import response.CustomHttpResponse;
+import response.StatusCodes;
+import util.MockTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+public class LogoutHandlerTests {
+
+    @Test(singleThreaded = true)
+    public void logoutDeletesTheSession() {
+        var testUtils = new MockTestUtils();
+        var auth = testUtils.createLogin(String.valueOf(Math.random()));
+
+        var res = logout(auth.getHash());
+        Assert.assertEquals(res.status, StatusCodes.OK);
+        Assert.assertEquals(res.headers.get("Set-Cookie"), "auth=; Max-Age=0");
+        Mockito.verify(testUtils.mockAuthDao).deleteSession(auth.getHash());
+
+        // the session was cached by the logout itself and must not outlive the delete
+        Mockito.doReturn(List.of()).when(testUtils.mockAuthDao).querySession(auth.getHash());
+        Assert.assertEquals(logout(auth.getHash()).status, StatusCodes.UNAUTHORIZED);
+    }
+
+    @Test(singleThreaded = true)
+    public void logoutRevokesTheToken() {
+        var tokens = new SessionTokens(true,
+                Map.of("k1", "secret-k1".getBytes(StandardCharsets.UTF_8)), 60,
+                () -> Instant.now().getEpochSecond());
+        SessionTokens.setInstanceSupplier(() -> tokens);
+        try {
+            var testUtils = new MockTestUtils();
+            String token = tokens.issue("alice");
+
+            Assert.assertEquals(logout(token).status, StatusCodes.OK);
+            Assert.assertNull(tokens.verify(token));
+            Mockito.verifyNoInteractions(testUtils.mockAuthDao);
+        } finally {
+            SessionTokens.setInstanceSupplier(SessionTokens::load);
+        }
+    }
+
+    @Test(singleThreaded = true)
+    public void logoutNeedsALogin() {
+        var testUtils = new MockTestUtils();
+        Mockito.doReturn(List.of()).when(testUtils.mockAuthDao).querySession("unknown");
+
+        Assert.assertEquals(logout("unknown").status, StatusCodes.UNAUTHORIZED);
+        Mockito.verify(testUtils.mockAuthDao, Mockito.never()).deleteSession("unknown");
+    }
+
+    private static CustomHttpResponse logout(String cookie) {
+        var request = new ParsedRequest();
+        request.setPath("/logout");
+        request.setCookieValue("auth", cookie);
+        return HandlerFactory.getHandler(request).handleRequest(request).build();
+    }
+}
@@ -0,0 +1,140 @@
+package applogic;
+
+import dto.MessageDto;
+import events.MessageHub;
+import handler.HandlerFactory;
+import handler.StreamConversationHandler;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import request.ParsedRequest;
+import response.StatusCodes;
+import util.MockTestUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+
+public class StreamConversationTest {
+
+    @Test(singleThreaded = true)
+    public void notLoggedIn() {
+        new MockTestUtils();
+        ParsedRequest parsedRequest = new ParsedRequest();
+        parsedRequest.setPath("/streamConversation");
+        parsedRequest.setCookieValue("auth", String.valueOf(Math.random()));
+
+        var builder = HandlerFactory.getHandler(parsedRequest).handleRequest(parsedRequest);
+
+        Assert.assertEquals(builder.getStatus(), StatusCodes.UNAUTHORIZED);
+        Assert.assertNull(builder.getStreamingBody());
+    }
+
+    @Test(timeOut = 5000)
+    public void pushesMessagesOfTheConversation() throws Exception {
+        String userName = String.valueOf(Math.random());
+        var in = new PipedInputStream();
+        var out = new PipedOutputStream(in);
+        var stream = new StreamConversationHandler.EventStream(userName, userName + "_bob");
+        Thread streamer = Thread.ofVirtual().start(() -> {
+            try (out) {
+                stream.stream(new ByteArrayInputStream(new byte[0]), out);
+            } catch (IOException ignored) {
+                // reader closed
+            }
+        });
+        var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Assert.assertEquals(reader.readLine(), "retry: 3000");
+        Assert.assertEquals(reader.readLine(), "");
+
+        var hub = MessageHub.getInstance();
+        while (hub.subscriberCount(userName) == 0) {
+            Thread.sleep(5);
+        }
+        hub.publish(message(userName, "carol", userName + "_carol", "other conversation"));
+        hub.publish(message(userName, "bob", userName + "_bob", "hello bob"));
+
+        Assert.assertEquals(reader.readLine(), "event: message");
+        String data = reader.readLine();
+        Assert.assertTrue(data.startsWith("data: {"));
+        Assert.assertTrue(data.contains("hello bob"));
+        Assert.assertEquals(reader.readLine(), "");
+
+        in.close();
+        streamer.interrupt();
+        streamer.join();
+        Assert.assertEquals(hub.subscriberCount(userName), 0);
+    }
+
+    @Test(singleThreaded = true, timeOut = 5000)
+    public void stalledClientIsDisconnected() throws Exception {
+        MessageHub.setInstanceSupplier(() -> new MessageHub(2));
+        try {
+            String userName = String.valueOf(Math.random());
+            var closed = new CountDownLatch(1);
+            // closing the connection's input closes the socket, which ends a blocked write
+            var connection = new ByteArrayInputStream(new byte[0]) {
+                @Override
+                public void close() {
+                    closed.countDown();
+                }
+            };
+            // takes the retry line, then stalls like a client that stopped reading
+            var out = new OutputStream() {
+                private boolean stalled;
+
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    if (stalled) {
+                        try {
+                            closed.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new IOException("Connection closed");
+                    }
+                    stalled = true;
+                }
+            };
+            var stream = new StreamConversationHandler.EventStream(userName, null);
+            Thread streamer = Thread.ofVirtual().start(() -> {
+                try {
+                    stream.stream(connection, out);
+                } catch (IOException ignored) {
+                    // disconnected
+                }
+            });
+
+            var hub = MessageHub.getInstance();
+            while (hub.subscriberCount(userName) == 0) {
+                Thread.sleep(5);
+            }
+            while (hub.subscriberCount(userName) > 0) {
+                hub.publish(message(userName, "bob", userName + "_bob", "hello bob"));
+            }
+            streamer.join();
+        } finally {
+            MessageHub.setInstanceSupplier(() -> new MessageHub(256));
+        }
+    }
+
+    private static MessageDto message(String from, String to, String conversationId,
+                                      String text) {
+        var message = new MessageDto();
+        message.setFromId(from);
+        message.setToId(to);
+        message.setConversationId(conversationId);
+        message.setMessage(text);
+        return message;
+    }
+}
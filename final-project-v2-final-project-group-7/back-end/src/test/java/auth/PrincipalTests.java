@@ -0,0 +1,48 @@
+package auth;
+
+import dao.AuthDao;
+import dao.UserDao;
+import dto.AuthDto;
+import dto.UserDto;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import request.ParsedRequest;
+import util.MockTestUtils;
+
+import java.util.List;
+
+public class PrincipalTests {
+
+    @Test(singleThreaded = true)
+    public void resolvesSessionAndUserOncePerRequest() {
+        new MockTestUtils();
+        String hash = String.valueOf(Math.random());
+        var session = new AuthDto();
+        session.setHash(hash);
+        session.setUserName("alice");
+        var user = new UserDto();
+        user.setUserName("alice");
+        AuthDao authDao = AuthDao.getInstance();
+        UserDao userDao = UserDao.getInstance();
+        Mockito.doReturn(List.of(session)).when(authDao).querySession(hash);
+        Mockito.doReturn(List.of(user)).when(userDao).query("userName", "alice");
+
+        var request = new ParsedRequest();
+        request.setCookieValue("auth", hash);
+        Assert.assertTrue(AuthFilter.doFilter(request).isLoggedIn);
+        Assert.assertTrue(request.getPrincipal().isLoggedIn());
+        Assert.assertSame(request.getPrincipal().getUser(), user);
+        Assert.assertSame(request.getPrincipal().getUser(), user);
+
+        Mockito.verify(authDao, Mockito.times(1)).querySession(hash);
+        Mockito.verify(userDao, Mockito.times(1)).query("userName", "alice");
+    }
+
+    @Test
+    public void anonymousRequestHasNoUser() {
+        var request = new ParsedRequest();
+        Assert.assertFalse(request.getPrincipal().isLoggedIn());
+        Assert.assertNull(request.getPrincipal().getUser());
+    }
+}
@@ -0,0 +1,75 @@
+package auth;
+
+import dao.AuthDao;
+import dto.AuthDto;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import util.MockTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SessionCacheTests {
+
+    @Test(singleThreaded = true)
+    public void cachesSessionUntilExpireTime() {
+        var clock = new AtomicLong(1_000_000);
+        var cache = new SessionCache(100, 60000, 5000, clock::get);
+        AuthDao authDao = session("abc", "alice", 1_030L);
+
+        Assert.assertEquals(cache.getUserName("abc"), "alice");
+        Assert.assertEquals(cache.getUserName("abc"), "alice");
+        Mockito.verify(authDao, Mockito.times(1)).querySession("abc");
+        Assert.assertEquals(cache.getHits(), 1);
+        Assert.assertEquals(cache.getMisses(), 1);
+
+        // past expireTime the stored session no longer counts
+        clock.set(1_030_000);
+        Assert.assertNull(cache.getUserName("abc"));
+        Mockito.verify(authDao, Mockito.times(2)).querySession("abc");
+    }
+
+    @Test(singleThreaded = true)
+    public void unknownHashIsCachedBriefly() {
+        var clock = new AtomicLong(0);
+        var cache = new SessionCache(100, 60000, 5000, clock::get);
+        AuthDao authDao = session("other", "bob", null);
+
+        Assert.assertNull(cache.getUserName("nope"));
+        Assert.assertNull(cache.getUserName("nope"));
+        Mockito.verify(authDao, Mockito.times(1)).querySession("nope");
+        Assert.assertEquals(cache.getNegativeHits(), 1);
+
+        clock.set(5000);
+        Assert.assertNull(cache.getUserName("nope"));
+        Mockito.verify(authDao, Mockito.times(2)).querySession("nope");
+
+        cache.invalidate("nope");
+        Assert.assertNull(cache.getUserName("nope"));
+        Mockito.verify(authDao, Mockito.times(3)).querySession("nope");
+    }
+
+    @Test(singleThreaded = true)
+    public void staysBounded() {
+        var cache = new SessionCache(16, 60000, 5000, () -> 0);
+        session("other", "bob", null);
+
+        for (int i = 0; i < 100; i++) {
+            cache.getUserName("hash" + i);
+        }
+        Assert.assertTrue(cache.size() <= 16);
+        Assert.assertTrue(cache.getEvictions() > 0);
+    }
+
+    private static AuthDao session(String hash, String userName, Long expireTime) {
+        new MockTestUtils();
+        var session = new AuthDto();
+        session.setHash(hash);
+        session.setUserName(userName);
+        session.setExpireTime(expireTime);
+        AuthDao authDao = AuthDao.getInstance();
+        Mockito.doReturn(List.of(session)).when(authDao).querySession(hash);
+        return authDao;
+    }
+}
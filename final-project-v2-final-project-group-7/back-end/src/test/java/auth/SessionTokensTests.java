@@ -0,0 +1,85 @@
+package auth;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import request.ParsedRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SessionTokensTests {
+
+    private final AtomicLong clock = new AtomicLong(1000);
+
+    @Test
+    public void issuedTokenVerifies() {
+        var tokens = tokens("k2", "k1");
+        String token = tokens.issue("alice.b");
+
+        Assert.assertTrue(SessionTokens.isToken(token));
+        Assert.assertEquals(tokens.verify(token), "alice.b");
+
+        clock.addAndGet(60);
+        Assert.assertNull(tokens.verify(token));
+    }
+
+    @Test
+    public void rejectsTamperedTokens() {
+        var tokens = tokens("k1");
+        String token = tokens.issue("alice");
+        String[] parts = token.split("\\.");
+
+        Assert.assertNull(tokens.verify(token.replace("." + parts[3] + ".", ".99999.")));
+        Assert.assertNull(tokens.verify(token.substring(0, token.length() - 2)));
+        Assert.assertNull(tokens.verify("t1.k1.garbage"));
+        Assert.assertNull(tokens("k1", "other").verify(tokens("other").issue("alice")
+                .replace("t1.other.", "t1.k1.")));
+    }
+
+    @Test
+    public void rotatedKeyKeepsOldTokensUntilDropped() {
+        String old = tokens("k1").issue("alice");
+
+        Assert.assertEquals(tokens("k2", "k1").verify(old), "alice");
+        Assert.assertTrue(tokens("k2", "k1").issue("alice").startsWith("t1.k2."));
+        Assert.assertNull(tokens("k2").verify(old));
+    }
+
+    @Test
+    public void revokedTokenIsRejected() {
+        var tokens = tokens("k1");
+        String revoked = tokens.issue("alice");
+        clock.incrementAndGet();
+        String other = tokens.issue("alice");
+
+        tokens.revoke(revoked);
+        Assert.assertNull(tokens.verify(revoked));
+        Assert.assertEquals(tokens.verify(other), "alice");
+    }
+
+    @Test(singleThreaded = true)
+    public void authFilterAcceptsTokenWithoutDatabase() {
+        var tokens = tokens("k1");
+        SessionTokens.setInstanceSupplier(() -> tokens);
+        try {
+            var request = new ParsedRequest();
+            request.setCookieValue("auth", tokens.issue("alice"));
+            AuthFilter.AuthResult result = AuthFilter.doFilter(request);
+            Assert.assertTrue(result.isLoggedIn);
+            Assert.assertEquals(result.userName, "alice");
+        } finally {
+            SessionTokens.setInstanceSupplier(SessionTokens::load);
+        }
+    }
+
+    // the key ids double as their secrets
+    private SessionTokens tokens(String... keyIds) {
+        Map<String, byte[]> keys = new LinkedHashMap<>();
+        for (String keyId : keyIds) {
+            keys.put(keyId, ("secret-" + keyId).getBytes(StandardCharsets.UTF_8));
+        }
+        return new SessionTokens(true, keys, 60, clock::get);
+    }
+}
@@ -0,0 +1,121 @@
+package dao;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteConcernError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import dto.MessageDto;
+import org.bson.BsonDocument;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class BulkWriteTests {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void sendsBatchesAndAssignsIds() {
+        MongoCollection<MessageDto> collection = Mockito.mock(MongoCollection.class);
+        var bulk = new BulkWrite<>(collection).batchSize(2);
+        var messages = List.of(new MessageDto(), new MessageDto(), new MessageDto());
+        messages.forEach(bulk::put);
+        bulk.delete("0123456789abcdef01234567");
+
+        var results = bulk.execute();
+
+        var batches = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(collection, Mockito.times(2))
+                .bulkWrite(batches.capture(), Mockito.any(BulkWriteOptions.class));
+        Assert.assertEquals(batches.getAllValues().get(0).size(), 2);
+        Assert.assertEquals(batches.getAllValues().get(1).size(), 2);
+        Assert.assertTrue(results.stream().allMatch(BulkWrite.ItemResult::isWritten));
+        Assert.assertTrue(messages.stream().allMatch(message -> message.getUniqueId() != null));
+    }
+
+    @Test
+    public void orderedStopsAtFirstFailure() {
+        var results = failSecondOf(4, true);
+
+        Assert.assertEquals(results.get(0).status(), BulkWrite.Status.WRITTEN);
+        Assert.assertEquals(results.get(1).status(), BulkWrite.Status.FAILED);
+        Assert.assertEquals(results.get(1).error(), "duplicate");
+        Assert.assertEquals(results.get(2).status(), BulkWrite.Status.SKIPPED);
+        Assert.assertEquals(results.get(3).status(), BulkWrite.Status.SKIPPED);
+    }
+
+    @Test
+    public void unorderedReportsEachFailure() {
+        var results = failSecondOf(4, false);
+
+        Assert.assertEquals(results.get(1).status(), BulkWrite.Status.FAILED);
+        Assert.assertEquals(results.stream().filter(BulkWrite.ItemResult::isWritten).count(), 3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void writeConcernErrorFailsTheBatch() {
+        MongoCollection<MessageDto> collection = Mockito.mock(MongoCollection.class);
+        var failure = new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(),
+                new WriteConcernError(64, "waiting for replication timed out",
+                        new BsonDocument()), new ServerAddress());
+        Mockito.when(collection.bulkWrite(Mockito.anyList(), Mockito.any(BulkWriteOptions.class)))
+                .thenThrow(failure)
+                .thenReturn(BulkWriteResult.unacknowledged());
+        var bulk = new BulkWrite<>(collection).batchSize(2).ordered(false);
+        var messages = List.of(new MessageDto(), new MessageDto(), new MessageDto());
+        messages.forEach(bulk::put);
+
+        var results = bulk.execute();
+
+        Assert.assertEquals(results.get(0).status(), BulkWrite.Status.FAILED);
+        Assert.assertEquals(results.get(1).error(), "waiting for replication timed out");
+        Assert.assertTrue(results.get(2).isWritten());
+        Assert.assertNull(messages.get(0).getUniqueId());
+        Assert.assertNotNull(messages.get(2).getUniqueId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void otherFailuresTakeBackTheIds() {
+        MongoCollection<MessageDto> collection = Mockito.mock(MongoCollection.class);
+        Mockito.when(collection.bulkWrite(Mockito.anyList(), Mockito.any(BulkWriteOptions.class)))
+                .thenReturn(BulkWriteResult.unacknowledged())
+                .thenThrow(new MongoTimeoutException("no server"));
+        var bulk = new BulkWrite<>(collection).batchSize(1);
+        var messages = List.of(new MessageDto(), new MessageDto());
+        messages.forEach(bulk::put);
+
+        Assert.expectThrows(MongoTimeoutException.class, bulk::execute);
+        Assert.assertNotNull(messages.get(0).getUniqueId());
+        Assert.assertNull(messages.get(1).getUniqueId());
+    }
+
+    // the first batch fails on its second operation, later batches go through
+    @SuppressWarnings("unchecked")
+    private static List<BulkWrite.ItemResult> failSecondOf(int count, boolean ordered) {
+        MongoCollection<MessageDto> collection = Mockito.mock(MongoCollection.class);
+        var failure = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, "duplicate", new BsonDocument(), 1)), null,
+                new ServerAddress());
+        Mockito.when(collection.bulkWrite(Mockito.anyList(), Mockito.any(BulkWriteOptions.class)))
+                .thenThrow(failure)
+                .thenReturn(BulkWriteResult.unacknowledged());
+        var bulk = new BulkWrite<>(collection).batchSize(2).ordered(ordered);
+        var messages = IntStream.range(0, count).mapToObj(i -> new MessageDto()).toList();
+        messages.forEach(bulk::put);
+        var results = bulk.execute();
+        // only the inserts that went through keep their id
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(messages.get(i).getUniqueId() != null, results.get(i).isWritten());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,70 @@
+package dao;
+
+import com.mongodb.client.ListIndexesIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class IndexManagerTests {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void createsOnlyMissingIndexes() {
+        MongoDatabase database = Mockito.mock(MongoDatabase.class);
+        Map<String, MongoCollection<Document>> collections = new HashMap<>();
+        Mockito.when(database.getCollection(Mockito.anyString())).thenAnswer(call ->
+                collections.computeIfAbsent(call.getArgument(0), name -> {
+                    // UserDao already has its index
+                    List<Document> existing = name.equals("UserDao")
+                            ? List.of(new Document("name", "userName_unique")
+                                    .append("key", new Document("userName", 1)))
+                            : List.of(new Document("name", "_id_")
+                                    .append("key", new Document("_id", 1)));
+                    return collection(existing);
+                }));
+
+        List<String> created = IndexManager.ensureIndexes(database);
+
+        Assert.assertEquals(created.size(), IndexManager.INDEXES.size() - 1);
+        Assert.assertFalse(created.contains("userName_unique"));
+        Mockito.verify(collections.get("UserDao"), Mockito.never())
+                .createIndex(Mockito.any(Bson.class), Mockito.any(IndexOptions.class));
+        var options = ArgumentCaptor.forClass(IndexOptions.class);
+        Mockito.verify(collections.get("AuthDao"), Mockito.times(2))
+                .createIndex(Mockito.any(Bson.class), options.capture());
+        Assert.assertTrue(options.getAllValues().get(0).isUnique());
+        Assert.assertEquals(options.getAllValues().get(1).getExpireAfter(
+                TimeUnit.SECONDS), Long.valueOf(0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<Document> collection(List<Document> indexes) {
+        MongoCollection<Document> collection = Mockito.mock(MongoCollection.class);
+        ListIndexesIterable<Document> iterable = Mockito.mock(ListIndexesIterable.class);
+        Mockito.when(iterable.iterator()).thenAnswer(call -> cursor(new ArrayList<>(indexes)));
+        Mockito.when(collection.listIndexes()).thenReturn(iterable);
+        return collection;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCursor<Document> cursor(List<Document> documents) {
+        MongoCursor<Document> cursor = Mockito.mock(MongoCursor.class);
+        var iterator = documents.iterator();
+        Mockito.when(cursor.hasNext()).thenAnswer(call -> iterator.hasNext());
+        Mockito.when(cursor.next()).thenAnswer(call -> iterator.next());
+        return cursor;
+    }
+}
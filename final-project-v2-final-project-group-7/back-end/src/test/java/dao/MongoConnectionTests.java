@@ -0,0 +1,37 @@
+package dao;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class MongoConnectionTests {
+
+    @AfterMethod
+    public void clearProperties() {
+        System.clearProperty("db.maxPoolSize");
+        System.clearProperty("db.minPoolSize");
+        System.clearProperty("db.serverSelectionTimeoutMs");
+    }
+
+    @Test
+    public void optionsComeFromProperties() {
+        System.setProperty("db.maxPoolSize", "32");
+        System.setProperty("db.minPoolSize", "4");
+        System.setProperty("db.serverSelectionTimeoutMs", "2000");
+
+        var options = MongoConnection.loadOptions();
+
+        Assert.assertEquals(options.getConnectionsPerHost(), 32);
+        Assert.assertEquals(options.getMinConnectionsPerHost(), 4);
+        Assert.assertEquals(options.getServerSelectionTimeout(), 2000);
+    }
+
+    @Test
+    public void defaultsAreTheDrivers() {
+        var options = MongoConnection.loadOptions();
+
+        Assert.assertEquals(options.getConnectionsPerHost(), 100);
+        Assert.assertEquals(options.getMinConnectionsPerHost(), 0);
+        Assert.assertEquals(options.getSocketTimeout(), 0);
+    }
+}
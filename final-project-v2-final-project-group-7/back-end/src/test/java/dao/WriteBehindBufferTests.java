@@ -0,0 +1,116 @@
+package dao;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteConcernError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import dto.MessageDto;
+import org.bson.BsonDocument;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+public class WriteBehindBufferTests {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void fullBatchIsWrittenTogether() throws Exception {
+        MongoCollection<MessageDto> collection = Mockito.mock(MongoCollection.class);
+        // a deadline far away, so only the batch filling up sends it
+        try (var buffer = new WriteBehindBuffer<>(collection, 4, 60000, 100)) {
+            var written = IntStream.range(0, 4)
+                    .mapToObj(i -> buffer.insert(message(i)))
+                    .toArray(CompletableFuture[]::new);
+
+            CompletableFuture.allOf(written).get(5, TimeUnit.SECONDS);
+
+            var batch = ArgumentCaptor.forClass(List.class);
+            Mockito.verify(collection).insertMany(batch.capture(),
+                    Mockito.any(InsertManyOptions.class));
+            Assert.assertEquals(batch.getValue().size(), 4);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void loneDocumentIsWrittenAtTheDeadline() throws Exception {
+        MongoCollection<MessageDto> collection = Mockito.mock(MongoCollection.class);
+        try (var buffer = new WriteBehindBuffer<>(collection, 100, 5, 100)) {
+            buffer.insert(message(0)).get(5, TimeUnit.SECONDS);
+
+            Mockito.verify(collection).insertMany(Mockito.anyList(),
+                    Mockito.any(InsertManyOptions.class));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void failureOnlyFailsItsOwnDocument() throws Exception {
+        MongoCollection<MessageDto> collection = Mockito.mock(MongoCollection.class);
+        Mockito.doThrow(new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                        List.of(new BulkWriteError(11000, "duplicate", new BsonDocument(), 1)),
+                        null, new ServerAddress()))
+                .when(collection).insertMany(Mockito.anyList(), Mockito.any(InsertManyOptions.class));
+        try (var buffer = new WriteBehindBuffer<>(collection, 2, 60000, 100)) {
+            var first = buffer.insert(message(0));
+            var second = buffer.insert(message(1));
+
+            first.get(5, TimeUnit.SECONDS);
+            var failure = Assert.expectThrows(CompletionException.class, second::join);
+            Assert.assertEquals(failure.getCause().getMessage(), "duplicate");
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void writeConcernErrorFailsTheWholeBatch() throws Exception {
+        MongoCollection<MessageDto> collection = Mockito.mock(MongoCollection.class);
+        var failure = new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(),
+                new WriteConcernError(64, "waiting for replication timed out",
+                        new BsonDocument()), new ServerAddress());
+        Mockito.doThrow(failure)
+                .when(collection).insertMany(Mockito.anyList(), Mockito.any(InsertManyOptions.class));
+        try (var buffer = new WriteBehindBuffer<>(collection, 2, 60000, 100)) {
+            var first = buffer.insert(message(0));
+            var second = buffer.insert(message(1));
+
+            for (var written : List.of(first, second)) {
+                var error = Assert.expectThrows(CompletionException.class, written::join);
+                Assert.assertSame(error.getCause(), failure);
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void fullQueueWritesDirectly() throws Exception {
+        MongoCollection<MessageDto> collection = Mockito.mock(MongoCollection.class);
+        var buffer = new WriteBehindBuffer<>(collection, 10, 60000, 1);
+        var queued = buffer.insert(message(0));
+        var overflow = message(1);
+
+        buffer.insert(overflow).get(5, TimeUnit.SECONDS);
+        Mockito.verify(collection).insertOne(overflow);
+        Assert.assertFalse(queued.isDone());
+
+        // closing writes what is still queued
+        buffer.close();
+        Assert.assertTrue(queued.isDone());
+    }
+
+    private static MessageDto message(int index) {
+        var message = new MessageDto();
+        message.setMessage("message " + index);
+        return message;
+    }
+}
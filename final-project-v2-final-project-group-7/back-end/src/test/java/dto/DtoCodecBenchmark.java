@@ -0,0 +1,137 @@
+package dto;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// What BaseDao.query does with each document of a reply, before and after the codecs:
+// decoding a page of messages from the BSON bytes the driver receives, either into a
+// Document that is then copied into a MessageDto, or straight into the MessageDto.
+// Encoding is what put sends. The Document baseline keeps the field by field mapping
+// the DTOs had before the codecs, since toDocument and fromDocument now use the codec
+// themselves. The gc profiler columns give the allocation per page.
+// Run with: mvn test-compile exec:java -Dexec.mainClass=dto.DtoCodecBenchmark
+//           -Dexec.classpathScope=test
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoCodecBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private final DocumentCodec documentCodec = new DocumentCodec();
+    private final MessageDtoCodec messageCodec = new MessageDtoCodec();
+    private final DecoderContext decoderContext = DecoderContext.builder().build();
+    private final EncoderContext encoderContext = EncoderContext.builder().build();
+
+    // reused like the driver reuses its pooled buffers
+    private final BasicOutputBuffer buffer = new BasicOutputBuffer();
+
+    private List<byte[]> page;
+    private List<MessageDto> messages;
+
+    @Setup
+    public void setup() {
+        page = new ArrayList<>();
+        messages = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            var message = new MessageDto();
+            message.setUniqueId(new ObjectId().toHexString());
+            message.setFromId("alice");
+            message.setToId("bob");
+            message.setConversationId("alice_bob");
+            message.setMessage("are we still on for tonight? let me know " + i);
+
+            var encoded = new BasicOutputBuffer();
+            messageCodec.encode(new BsonBinaryWriter(encoded), message, encoderContext);
+            page.add(encoded.toByteArray());
+            // encoded like a new message, without an _id
+            message.setUniqueId(null);
+            messages.add(message);
+        }
+    }
+
+    @Benchmark
+    public void decodeThroughDocument(Blackhole blackhole) {
+        for (byte[] bytes : page) {
+            Document document = documentCodec.decode(reader(bytes), decoderContext);
+            var message = new MessageDto();
+            message.setUniqueId(document.getObjectId("_id").toHexString());
+            message.setFromId(document.getString("fromId"));
+            message.setToId(document.getString("toId"));
+            message.setMessage(document.getString("message"));
+            message.setTimestamp(document.getLong("timestamp"));
+            message.setConversationId(document.getString("conversationId"));
+            blackhole.consume(message);
+        }
+    }
+
+    @Benchmark
+    public void decodeWithCodec(Blackhole blackhole) {
+        for (byte[] bytes : page) {
+            blackhole.consume(messageCodec.decode(reader(bytes), decoderContext));
+        }
+    }
+
+    @Benchmark
+    public void encodeThroughDocument(Blackhole blackhole) {
+        for (MessageDto message : messages) {
+            buffer.truncateToPosition(0);
+            var document = new Document()
+                    .append("fromId", message.getFromId())
+                    .append("toId", message.getToId())
+                    .append("message", message.getMessage())
+                    .append("timestamp", message.getTimestamp())
+                    .append("conversationId", message.getConversationId());
+            documentCodec.encode(new BsonBinaryWriter(buffer), document, encoderContext);
+            blackhole.consume(buffer.getSize());
+        }
+    }
+
+    @Benchmark
+    public void encodeWithCodec(Blackhole blackhole) {
+        for (MessageDto message : messages) {
+            buffer.truncateToPosition(0);
+            messageCodec.encode(new BsonBinaryWriter(buffer), message, encoderContext);
+            blackhole.consume(buffer.getSize());
+        }
+    }
+
+    private static BsonBinaryReader reader(byte[] bytes) {
+        return new BsonBinaryReader(ByteBuffer.wrap(bytes));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DtoCodecBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
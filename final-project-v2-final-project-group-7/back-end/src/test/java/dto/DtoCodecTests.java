@@ -0,0 +1,77 @@
+package dto;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.types.ObjectId;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Date;
+
+public class DtoCodecTests {
+
+    @Test
+    public void documentsGoThroughTheCodec() {
+        var auth = new AuthDto();
+        auth.setUserName("alice");
+        auth.setHash("abc");
+        auth.setExpireTime(1700000000L);
+
+        Document document = auth.toDocument();
+        // the TTL copy only AuthDtoCodec writes
+        Assert.assertEquals(document.getDate("expiresAt"), new Date(1700000000000L));
+        Assert.assertFalse(document.containsKey("_id"));
+
+        var user = new UserDto().setPassword("secret").setMessagesSent(3);
+        user.setUserName("alice");
+        user.setUniqueId(new ObjectId().toHexString());
+        var copy = new UserDto();
+        copy.fromDocument(user.toDocument());
+
+        Assert.assertEquals(copy.getUniqueId(), user.getUniqueId());
+        Assert.assertEquals(copy.getPassword(), "secret");
+        Assert.assertEquals(copy.getMessagesSent(), Integer.valueOf(3));
+    }
+
+    @Test
+    public void decodesStraightFromBson() {
+        ObjectId id = new ObjectId();
+        var document = new Document("_id", id)
+                .append("fromId", "alice")
+                .append("timestamp", 42)
+                .append("addedLater", "ignored");
+
+        MessageDto message = decode(MessageDto.class, document);
+
+        Assert.assertEquals(message.getUniqueId(), id.toHexString());
+        Assert.assertEquals(message.getFromId(), "alice");
+        Assert.assertEquals(message.getTimestamp(), Long.valueOf(42));
+        Assert.assertNull(message.getToId());
+
+        // a projected read leaves the counters at their defaults
+        UserDto user = decode(UserDto.class, new Document("userName", "alice"));
+        Assert.assertEquals(user.getMessagesSent(), Integer.valueOf(0));
+        Assert.assertNull(user.getUniqueId());
+    }
+
+    @Test
+    public void insertsGetTheirIdUpFront() {
+        var codec = (DtoCodec<MessageDto>) DtoCodecs.REGISTRY.get(MessageDto.class);
+        var message = new MessageDto();
+
+        Assert.assertFalse(codec.documentHasId(message));
+        codec.generateIdIfAbsentFromDocument(message);
+
+        Assert.assertTrue(ObjectId.isValid(message.getUniqueId()));
+        Assert.assertEquals(codec.getDocumentId(message).asObjectId().getValue().toHexString(),
+                message.getUniqueId());
+    }
+
+    private static <T> T decode(Class<T> type, Document document) {
+        var reader = new BsonDocumentReader(document.toBsonDocument(BsonDocument.class,
+                DtoCodecs.REGISTRY));
+        return DtoCodecs.REGISTRY.get(type).decode(reader, DecoderContext.builder().build());
+    }
+}
@@ -1,28 +1,45 @@
-package dto;
-
-import org.bson.Document;
-import org.testng.Assert;
-import org.testng.annotations.Test;
-
-public class DtoConvertFromTests {
-
-    @Test
-    public void convertUserDto(){
-        UserDto userDto = new UserDto();
-        userDto.setUserName(String.valueOf(Math.random()));
-        userDto.setPassword(String.valueOf(Math.random()));
-        userDto.setMessagesSent((int) Math.random());
-        userDto.setMessagesRecieved((int) Math.random());
-        Document document = userDto.toDocument();
-        document.append("userName", userDto.getUserName());
-        document.append("password", userDto.getPassword());
-        document.append("messagesReceived", userDto.getMessagesRecieved());
-        document.append("messagesSent", userDto.getMessagesSent());
-        userDto.fromDocument(document);
-
-        Assert.assertEquals(userDto.getUserName(), document.getString("userName"));
-        Assert.assertEquals(userDto.getPassword(), document.getString("password"));
-        Assert.assertEquals(userDto.getMessagesRecieved(), document.getInteger("messagesReceived"));
-        Assert.assertEquals(userDto.getMessagesSent(), document.getInteger("messagesSent"));
-    }
-}
+package dto;
+
+import org.bson.Document;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DtoConvertFromTests {
+
+    @Test
+    public void convertUserDto(){
+        UserDto userDto = new UserDto();
+        userDto.setUserName(String.valueOf(Math.random()));
+        userDto.setPassword(String.valueOf(Math.random()));
+        userDto.setMessagesSent((int) Math.random());
+        userDto.setMessagesRecieved((int) Math.random());
+        Document document = userDto.toDocument();
+        document.append("userName", userDto.getUserName());
+        document.append("password", userDto.getPassword());
+        document.append("messagesReceived", userDto.getMessagesRecieved());
+        document.append("messagesSent", userDto.getMessagesSent());
+        userDto.fromDocument(document);
+
+        Assert.assertEquals(userDto.getUserName(), document.getString("userName"));
+        Assert.assertEquals(userDto.getPassword(), document.getString("password"));
+        Assert.assertEquals(userDto.getMessagesRecieved(), document.getInteger("messagesReceived"));
+        Assert.assertEquals(userDto.getMessagesSent(), document.getInteger("messagesSent"));
+    }
+
+    @Test
+    public void convertPartialDocuments() {
+        UserDto userDto = new UserDto();
+        userDto.fromDocument(new Document("userName", "alice"));
+        Assert.assertEquals(userDto.getUserName(), "alice");
+        Assert.assertNull(userDto.getPassword());
+        Assert.assertEquals(userDto.getMessagesSent(), Integer.valueOf(0));
+
+        ConversationDto conversationDto = new ConversationDto();
+        conversationDto.fromDocument(new Document("conversationId", "alice_bob"));
+        Assert.assertEquals(conversationDto.getMessageCount(), Integer.valueOf(0));
+
+        AuthDto authDto = new AuthDto();
+        authDto.fromDocument(new Document("userName", "alice"));
+        Assert.assertNull(authDto.getExpireTime());
+    }
+}
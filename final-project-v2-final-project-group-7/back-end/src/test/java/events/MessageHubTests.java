@@ -0,0 +1,63 @@
+package events;
+
+import dto.MessageDto;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class MessageHubTests {
+
+    @Test
+    public void deliversToSenderAndRecipient() throws InterruptedException {
+        var hub = new MessageHub(8);
+        Subscription alice = hub.subscribe("alice");
+        Subscription bob = hub.subscribe("bob");
+        Subscription carol = hub.subscribe("carol");
+
+        hub.publish(message("alice", "bob"));
+
+        Assert.assertEquals(alice.poll(1, TimeUnit.SECONDS).getToId(), "bob");
+        Assert.assertEquals(bob.poll(1, TimeUnit.SECONDS).getFromId(), "alice");
+        Assert.assertNull(carol.poll());
+    }
+
+    @Test
+    public void slowSubscriberIsDisconnected() {
+        var hub = new MessageHub(2);
+        Subscription slow = hub.subscribe("bob");
+        Subscription other = hub.subscribe("bob");
+
+        hub.publish(message("alice", "bob"));
+        hub.publish(message("alice", "bob"));
+        other.poll();
+        other.poll();
+        hub.publish(message("alice", "bob"));
+
+        Assert.assertTrue(slow.isClosed());
+        Assert.assertTrue(slow.isOverflowed());
+        Assert.assertFalse(other.isClosed());
+        Assert.assertEquals(hub.subscriberCount("bob"), 1);
+    }
+
+    @Test
+    public void closeUnsubscribes() {
+        var hub = new MessageHub(2);
+        Subscription subscription = hub.subscribe("alice");
+        subscription.close();
+
+        hub.publish(message("alice", "bob"));
+
+        Assert.assertEquals(hub.subscriberCount("alice"), 0);
+        Assert.assertNull(subscription.poll());
+    }
+
+    private static MessageDto message(String from, String to) {
+        var message = new MessageDto();
+        message.setFromId(from);
+        message.setToId(to);
+        message.setConversationId(from + "_" + to);
+        message.setMessage("hi");
+        return message;
+    }
+}
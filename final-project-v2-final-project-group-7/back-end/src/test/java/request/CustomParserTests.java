@@ -0,0 +1,52 @@
+package request;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CustomParserTests {
+
+    @Test
+    public void parsesRequestLineQueryAndBody() {
+        String body = "{\"toId\":\"bob\",\n\"message\":\"hi: there\"}";
+        String raw = "POST /sendMessage?conversationId=a%20b_c&flag&x=1 HTTP/1.1\r\n"
+                + "Host: localhost:1299\r\n"
+                + "Cookie: auth=abc123; theme=dark\r\n"
+                + "Content-Length: " + body.length() + "\r\n"
+                + "\r\n"
+                + body;
+        ParsedRequest request = CustomParser.parse(raw);
+        Assert.assertEquals(request.getMethod(), "POST");
+        Assert.assertEquals(request.getPath(), "/sendMessage");
+        Assert.assertEquals(request.getVersion(), "HTTP/1.1");
+        Assert.assertEquals(request.getQueryParam("conversationId"), "a b_c");
+        Assert.assertEquals(request.getQueryParam("flag"), "");
+        Assert.assertEquals(request.getQueryParam("x"), "1");
+        Assert.assertEquals(request.getHeaderValue("Host"), "localhost:1299");
+        Assert.assertEquals(request.getCookieValue("auth"), "abc123");
+        Assert.assertEquals(request.getCookieValue("theme"), "dark");
+        Assert.assertEquals(request.getBody(), body);
+    }
+
+    @Test
+    public void headerLookupIgnoresCase() {
+        ParsedRequest request = CustomParser.parse("GET /getUser HTTP/1.1\r\n"
+                + "connection: keep-alive\r\n"
+                + "X-Custom-Header: yes\r\n"
+                + "cookie: auth=abc\r\n"
+                + "\r\n");
+        Assert.assertEquals(request.getCookieValue("auth"), "abc");
+        Assert.assertEquals(request.getHeaderValue("Connection"), "keep-alive");
+        Assert.assertEquals(request.getHeaderValue("x-custom-header"), "yes");
+        Assert.assertNull(request.getQueryParam("conversationId"));
+        Assert.assertEquals(request.getBody(), "");
+
+        request.setHeaderValue("Connection", "close");
+        Assert.assertEquals(request.getHeaderValue("CONNECTION"), "close");
+        Assert.assertEquals(request.getHeaderValue("x-custom-header"), "yes");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsMalformedRequestLine() {
+        CustomParser.parse("garbage\r\n\r\n");
+    }
+}
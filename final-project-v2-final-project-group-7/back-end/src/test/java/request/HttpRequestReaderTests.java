@@ -0,0 +1,105 @@
+package request;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class HttpRequestReaderTests {
+
+    @Test
+    public void readsExactlyContentLength() throws IOException {
+        String body = "{\"userName\":\"" + "a".repeat(20000) + "\"}";
+        String raw = "POST /createUser HTTP/1.1\r\n"
+                + "Content-Length: " + body.length() + "\r\n"
+                + "\r\n"
+                + body
+                + "GET /getUser HTTP/1.1\r\n\r\n";
+        try (var reader = new HttpRequestReader(trickle(raw), 1024, 64 * 1024)) {
+            ParsedRequest first = parse(reader.readRequest());
+            Assert.assertEquals(first.getPath(), "/createUser");
+            Assert.assertEquals(first.getBody(), body);
+            ParsedRequest second = parse(reader.readRequest());
+            Assert.assertEquals(second.getPath(), "/getUser");
+            Assert.assertNull(reader.readRequest());
+        }
+    }
+
+    @Test
+    public void decodesChunkedBody() throws IOException {
+        String raw = "POST /sendMessage HTTP/1.1\r\n"
+                + "Transfer-Encoding: chunked\r\n"
+                + "\r\n"
+                + "5\r\n{\"toI\r\n"
+                + "c;ext=1\r\nd\":\"bob\"}   \r\n"
+                + "0\r\n"
+                + "\r\n";
+        try (var reader = new HttpRequestReader(trickle(raw), 1024, 1024)) {
+            ParsedRequest request = parse(reader.readRequest());
+            Assert.assertEquals(request.getBody().trim(), "{\"toId\":\"bob\"}");
+            Assert.assertNull(reader.readRequest());
+        }
+    }
+
+    @Test(expectedExceptions = RequestTooLargeException.class)
+    public void rejectsBodyOverLimit() throws IOException {
+        String raw = "POST /sendMessage HTTP/1.1\r\n"
+                + "Content-Length: 5000\r\n"
+                + "\r\n";
+        try (var reader = new HttpRequestReader(trickle(raw), 1024, 4096)) {
+            reader.readRequest();
+        }
+    }
+
+    @Test(expectedExceptions = RequestTooLargeException.class)
+    public void rejectsChunkSizeOverLimit() throws IOException {
+        String raw = "POST /sendMessage HTTP/1.1\r\n"
+                + "Transfer-Encoding: chunked\r\n"
+                + "\r\n"
+                + "80000000\r\nab\r\n";
+        try (var reader = new HttpRequestReader(trickle(raw), 1024, 4096)) {
+            reader.readRequest();
+        }
+    }
+
+    @Test
+    public void rejectsUnreadableContentLength() throws IOException {
+        for (String value : new String[] {"-5", "+5", "5x", "", "99999999999"}) {
+            String raw = "POST /sendMessage HTTP/1.1\r\n"
+                    + "Content-Length: " + value + "\r\n"
+                    + "\r\n"
+                    + "GET /getUser HTTP/1.1\r\n\r\n";
+            try (var reader = new HttpRequestReader(trickle(raw), 1024, 4096)) {
+                Assert.expectThrows(MalformedRequestException.class, reader::readRequest);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = RequestTooLargeException.class)
+    public void rejectsCompleteHeaderBlockOverLimit() throws IOException {
+        String raw = "GET /getUser HTTP/1.1\r\n"
+                + "Cookie: auth=" + "a".repeat(200) + "\r\n"
+                + "\r\n";
+        try (var reader = new HttpRequestReader(new ByteArrayInputStream(
+                raw.getBytes(StandardCharsets.UTF_8)), 128, 4096)) {
+            reader.readRequest();
+        }
+    }
+
+    private static ParsedRequest parse(byte[] request) {
+        return CustomParser.parse(request, 0, request.length);
+    }
+
+    // hands out at most 7 bytes per read, like a slow network
+    private static InputStream trickle(String raw) {
+        return new ByteArrayInputStream(raw.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+    }
+}
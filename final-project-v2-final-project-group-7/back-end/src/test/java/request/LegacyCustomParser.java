@@ -0,0 +1,57 @@
+package request;
+
+// The regex and split based parser CustomParser used before it moved to RawRequest,
+// kept only as the baseline for ParserBenchmark.
+class LegacyCustomParser {
+
+    public static ParsedRequest parse(String request) {
+        String[] lines = request.split("(\r\n|\r|\n)");
+        String requestLine = lines[0];
+        String[] requestParts = requestLine.split(" ");
+        var result = new ParsedRequest();
+        result.setMethod(requestParts[0]);
+
+        var parts = requestParts[1].split("\\?");
+        result.setPath(parts[0]);
+
+        if (parts.length == 2) {
+            String[] queryParts = parts[1].split("&");
+            for (int i = 0; i < queryParts.length; i++) {
+                String[] pair = queryParts[i].split("=");
+                try {
+                    String decodedValue = java.net.URLDecoder.decode(pair[1], "UTF-8");
+                    result.setQueryParam(pair[0], decodedValue);
+                } catch (Exception e) {
+                    result.setQueryParam(pair[0], pair[1]);
+                }
+            }
+        }
+
+        String body = "";
+        boolean emptyLine = false;
+        for (String line : lines) {
+            if (line.contains(":") && !emptyLine) {
+                String[] headerParts = line.split(":");
+                String key = headerParts[0].trim();
+                String value = headerParts[1].trim();
+                result.setHeaderValue(key, value);
+
+                if (key.equalsIgnoreCase("cookie")) {
+                    String[] cookieParts = value.trim().split(";");
+                    for (String cookiePart : cookieParts) {
+                        String[] cookieStringParts = cookiePart.split("=");
+                        result.setCookieValue(cookieStringParts[0], cookieStringParts[1]);
+                    }
+                }
+            }
+            if (line.equals("")) {
+                emptyLine = true;
+            }
+            if (emptyLine) {
+                body += line;
+            }
+        }
+        result.setBody(body);
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+package request;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Regex/split parser against the byte level parser on requests shaped like the ones
+// the front end sends: browser headers, an auth cookie and a query string or json body.
+// Both start from the raw bytes read off the socket, like the server does.
+// Run with: mvn test-compile exec:java -Dexec.mainClass=request.ParserBenchmark
+//           -Dexec.classpathScope=test
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    private static final String BROWSER_HEADERS = "Host: localhost:1299\r\n"
+            + "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko)"
+            + " Chrome/126.0.0.0 Safari/537.36\r\n"
+            + "Accept: */*\r\n"
+            + "Accept-Language: en-US,en;q=0.9\r\n"
+            + "Accept-Encoding: gzip, deflate, br\r\n"
+            + "Referer: http://localhost:3000/home\r\n"
+            + "Sec-Fetch-Dest: empty\r\n"
+            + "Sec-Fetch-Mode: cors\r\n"
+            + "Sec-Fetch-Site: same-origin\r\n"
+            + "Connection: keep-alive\r\n"
+            + "Cookie: auth=9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08;"
+            + " theme=dark; _ga=GA1.1.2093847561.1718000000\r\n";
+
+    private static final String GET_CONVERSATION =
+            "GET /getConversation?conversationId=alice_bob&limit=50 HTTP/1.1\r\n"
+            + BROWSER_HEADERS
+            + "\r\n";
+
+    private static final String SEND_MESSAGE_BODY =
+            "{\"toId\":\"bob\",\"message\":\"are we still on for tonight? let me know\"}";
+
+    private static final String SEND_MESSAGE = "POST /sendMessage HTTP/1.1\r\n"
+            + BROWSER_HEADERS
+            + "Content-Type: application/json\r\n"
+            + "Content-Length: " + SEND_MESSAGE_BODY.length() + "\r\n"
+            + "\r\n"
+            + SEND_MESSAGE_BODY;
+
+    @Param({"getConversation", "sendMessage"})
+    public String request;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        String raw = request.equals("getConversation") ? GET_CONVERSATION : SEND_MESSAGE;
+        bytes = raw.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void legacyParser(Blackhole blackhole) {
+        consume(LegacyCustomParser.parse(new String(bytes).trim()), blackhole);
+    }
+
+    @Benchmark
+    public void byteParser(Blackhole blackhole) {
+        consume(CustomParser.parse(bytes, 0, bytes.length), blackhole);
+    }
+
+    // what the handlers read from a request
+    private static void consume(ParsedRequest parsed, Blackhole blackhole) {
+        blackhole.consume(parsed.getPath());
+        blackhole.consume(parsed.getCookieValue("auth"));
+        blackhole.consume(parsed.getQueryParam("conversationId"));
+        blackhole.consume(parsed.getBody());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ParserBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,199 @@
+package response;
+
+import dto.MessageDto;
+import handler.GsonTool;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+public class ResponseWriterTests {
+
+    @Test
+    public void smallBodyHasContentLength() throws IOException {
+        var body = new RestApiAppResponse<>(true, messages(2), null);
+        String json = GsonTool.GSON.toJson(body);
+
+        String response = write(new ResponseBuilder().setStatus(StatusCodes.OK).setBody(body),
+                true, true);
+
+        Assert.assertTrue(response.startsWith("HTTP/1.1 200 OK\r\n"));
+        Assert.assertTrue(response.contains("Content-Type: application/json\r\n"));
+        Assert.assertTrue(response.contains("Connection: keep-alive\r\n"));
+        Assert.assertTrue(response.contains("Content-Length: "
+                + json.getBytes(StandardCharsets.UTF_8).length + "\r\n"));
+        Assert.assertTrue(response.endsWith("\r\n\r\n" + json));
+    }
+
+    @Test
+    public void largeBodyIsChunked() throws IOException {
+        var body = new RestApiAppResponse<>(true, messages(500), null);
+        String json = GsonTool.GSON.toJson(body);
+
+        String response = write(new ResponseBuilder().setStatus(StatusCodes.OK).setBody(body),
+                false, true);
+
+        int headEnd = response.indexOf("\r\n\r\n") + 4;
+        String head = response.substring(0, headEnd);
+        Assert.assertTrue(head.contains("Transfer-Encoding: chunked\r\n"));
+        Assert.assertFalse(head.contains("Content-Length"));
+        Assert.assertEquals(dechunk(response.substring(headEnd)), json);
+    }
+
+    @Test
+    public void streamedDataIsWrittenAndClosed() throws IOException {
+        List<MessageDto> messages = messages(500);
+        String json = GsonTool.GSON.toJson(new RestApiAppResponse<>(true, messages, null));
+        var closed = new AtomicBoolean();
+        var streamed = new StreamedData<>(messages.stream().onClose(() -> closed.set(true)));
+        var body = new RestApiAppResponse<>(true, streamed, null);
+
+        String response = write(new ResponseBuilder().setStatus(StatusCodes.OK).setBody(body),
+                false, true);
+
+        Assert.assertEquals(dechunk(response.substring(response.indexOf("\r\n\r\n") + 4)), json);
+        Assert.assertTrue(closed.get());
+        Assert.assertThrows(IllegalStateException.class, streamed::iterator);
+    }
+
+    @Test
+    public void largeBodyWithoutChunkingHasContentLength() throws IOException {
+        var body = new RestApiAppResponse<>(true, messages(500), null);
+        String json = GsonTool.GSON.toJson(body);
+
+        String response = write(new ResponseBuilder().setStatus(StatusCodes.OK).setBody(body),
+                false, false);
+
+        Assert.assertTrue(response.contains("Content-Length: " + json.length() + "\r\n"));
+        Assert.assertTrue(response.endsWith("\r\n\r\n" + json));
+    }
+
+    @Test
+    public void noBody() throws IOException {
+        String response = write(new ResponseBuilder().setStatus(StatusCodes.BAD_REQUEST),
+                false, true);
+
+        Assert.assertEquals(response, "HTTP/1.1 400 Bad Request\r\n"
+                + "Connection: close\r\n"
+                + "Content-Length: 0\r\n"
+                + "\r\n");
+    }
+
+    @Test
+    public void gzipBodyOverThreshold() throws IOException {
+        var body = new RestApiAppResponse<>(true, messages(500), null);
+        String json = GsonTool.GSON.toJson(body);
+        var compression = new Compression(Compression.Encoding.GZIP, 6, 1024);
+
+        byte[] response = writeBytes(new ResponseBuilder().setStatus(StatusCodes.OK)
+                .setBody(body), compression);
+
+        String head = head(response);
+        Assert.assertTrue(head.contains("Content-Encoding: gzip\r\n"));
+        Assert.assertTrue(head.contains("Vary: Accept-Encoding\r\n"));
+        byte[] compressed = Arrays.copyOfRange(response, head.length(), response.length);
+        Assert.assertTrue(head.contains("Content-Length: " + compressed.length + "\r\n"));
+        Assert.assertTrue(compressed.length < json.length() / 5);
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            Assert.assertEquals(new String(in.readAllBytes(), StandardCharsets.UTF_8), json);
+        }
+    }
+
+    @Test
+    public void deflateBodyOverThreshold() throws IOException {
+        var body = new RestApiAppResponse<>(true, messages(50), null);
+        var compression = new Compression(Compression.Encoding.DEFLATE, 1, 256);
+
+        byte[] response = writeBytes(new ResponseBuilder().setStatus(StatusCodes.OK)
+                .setBody(body), compression);
+
+        String head = head(response);
+        Assert.assertTrue(head.contains("Content-Encoding: deflate\r\n"));
+        var in = new InflaterInputStream(new ByteArrayInputStream(response, head.length(),
+                response.length - head.length()));
+        Assert.assertEquals(new String(in.readAllBytes(), StandardCharsets.UTF_8),
+                GsonTool.GSON.toJson(body));
+    }
+
+    @Test
+    public void smallBodyIsNotCompressed() throws IOException {
+        var body = new RestApiAppResponse<>(true, messages(1), null);
+        var compression = new Compression(Compression.Encoding.GZIP, 6, 1024);
+
+        String response = new String(writeBytes(new ResponseBuilder().setStatus(StatusCodes.OK)
+                .setBody(body), compression), StandardCharsets.UTF_8);
+
+        Assert.assertFalse(response.contains("Content-Encoding"));
+        Assert.assertTrue(response.contains("Vary: Accept-Encoding\r\n"));
+        Assert.assertTrue(response.endsWith("\r\n\r\n" + GsonTool.GSON.toJson(body)));
+    }
+
+    @Test
+    public void negotiatesAcceptEncoding() {
+        Assert.assertEquals(Compression.preferredEncoding("gzip, deflate, br"),
+                Compression.Encoding.GZIP);
+        Assert.assertEquals(Compression.preferredEncoding("deflate, gzip;q=0.5"),
+                Compression.Encoding.DEFLATE);
+        Assert.assertEquals(Compression.preferredEncoding("br, *;q=0.1"),
+                Compression.Encoding.GZIP);
+        Assert.assertNull(Compression.preferredEncoding("gzip;q=0, identity"));
+        Assert.assertNull(Compression.preferredEncoding(null));
+        Assert.assertNull(Compression.negotiate("gzip", 0, 1024));
+    }
+
+    private static byte[] writeBytes(ResponseBuilder builder, Compression compression)
+            throws IOException {
+        var out = new ByteArrayOutputStream();
+        ResponseWriter.write(builder, out, true, true, compression);
+        return out.toByteArray();
+    }
+
+    private static String head(byte[] response) {
+        String text = new String(response, StandardCharsets.ISO_8859_1);
+        return text.substring(0, text.indexOf("\r\n\r\n") + 4);
+    }
+
+    private static String write(ResponseBuilder builder, boolean keepAlive, boolean chunked)
+            throws IOException {
+        var out = new ByteArrayOutputStream();
+        ResponseWriter.write(builder, out, keepAlive, chunked);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static List<MessageDto> messages(int count) {
+        List<MessageDto> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MessageDto message = new MessageDto();
+            message.setConversationId("alice_bob");
+            message.setFromId("alice");
+            message.setToId("bob");
+            message.setMessage("message number " + i);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private static String dechunk(String chunked) {
+        StringBuilder body = new StringBuilder();
+        int pos = 0;
+        while (true) {
+            int lineEnd = chunked.indexOf("\r\n", pos);
+            int size = Integer.parseInt(chunked.substring(pos, lineEnd), 16);
+            if (size == 0) {
+                Assert.assertEquals(chunked.substring(lineEnd), "\r\n\r\n");
+                return body.toString();
+            }
+            body.append(chunked, lineEnd + 2, lineEnd + 2 + size);
+            pos = lineEnd + 2 + size + 2;
+        }
+    }
+}
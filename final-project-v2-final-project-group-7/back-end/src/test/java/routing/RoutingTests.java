@@ -1,67 +1,101 @@
-package routing;
-
-import handler.*;
-import org.testng.Assert;
-import org.testng.annotations.Test;
-import request.CustomParser;
-import request.ParsedRequest;
-
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
-
-public class RoutingTests {
-
-    @Test
-    public void testAllRoutes() {
-        var basicRequest = new ParsedRequest();
-        basicRequest.setPath("/createUser");
-        Assert.assertTrue(HandlerFactory.getHandler(basicRequest) instanceof CreateUserHandler);
-        basicRequest.setPath("/login");
-        Assert.assertTrue(HandlerFactory.getHandler(basicRequest) instanceof LoginHandler);
-        basicRequest.setPath("/sendMessage");
-        Assert.assertTrue(HandlerFactory.getHandler(basicRequest) instanceof SendMessageHandler);
-        basicRequest.setPath("/getConversations");
-        Assert.assertTrue(HandlerFactory.getHandler(basicRequest) instanceof GetConversationsHandler);
-        basicRequest.setPath("/getConversation");
-        Assert.assertTrue(HandlerFactory.getHandler(basicRequest) instanceof GetConversationHandler);
-    }
-
-    @Test
-    public void testFactory() {
-        var basicRequest = new ParsedRequest();
-        basicRequest.setPath("/");
-        var res = HandlerFactory.getHandler(basicRequest);
-        Assert.assertNotNull(res);
-        Assert.assertTrue(res instanceof BaseHandler);
-
-        basicRequest.setPath("/createUser");
-        var res2 = HandlerFactory.getHandler(basicRequest);
-        Assert.assertNotNull(res2);
-        Assert.assertTrue(res2 instanceof BaseHandler);
-        Assert.assertNotSame(res, res2);
-        Assert.assertNotSame(res.getClass(), res2.getClass());
-    }
-
-    @Test
-    public void getRequestHeaders() {
-        int min = 2;
-        int max = 100;
-        int headerLength = new Random().nextInt(max - min) + min;
-        String httpRequest = "GET /someUrl HTTP1.1\n";
-        Map<String, String> keyValues = new HashMap<>();
-        for (int i = 0; i < headerLength; i++) {
-            String key = String.valueOf(Math.random());
-            String value = String.valueOf(Math.random());
-            keyValues.put(key, value);
-            httpRequest += key + ": " + value + "\n";
-        }
-        httpRequest += "\n";
-        System.out.println(httpRequest);
-        ParsedRequest parsedRequest = CustomParser.parse(httpRequest);
-        keyValues.entrySet().stream()
-                .forEach(set -> {
-                    Assert.assertEquals(parsedRequest.getHeaderValue(set.getKey()), set.getValue());
-                });
-    }
-}
+package routing;
+
+import handler.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import request.CustomParser;
+import request.ParsedRequest;
+import response.StatusCodes;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class RoutingTests {
+
+    @Test
+    public void testAllRoutes() {
+        var basicRequest = new ParsedRequest();
+        basicRequest.setPath("/createUser");
+        Assert.assertTrue(HandlerFactory.getHandler(basicRequest) instanceof CreateUserHandler);
+        basicRequest.setPath("/login");
+        Assert.assertTrue(HandlerFactory.getHandler(basicRequest) instanceof LoginHandler);
+        basicRequest.setPath("/sendMessage");
+        Assert.assertTrue(HandlerFactory.getHandler(basicRequest) instanceof SendMessageHandler);
+        basicRequest.setPath("/getConversations");
+        Assert.assertTrue(HandlerFactory.getHandler(basicRequest) instanceof GetConversationsHandler);
+        basicRequest.setPath("/getConversation");
+        Assert.assertTrue(HandlerFactory.getHandler(basicRequest) instanceof GetConversationHandler);
+    }
+
+    @Test
+    public void testFactory() {
+        var basicRequest = new ParsedRequest();
+        basicRequest.setPath("/");
+        var res = HandlerFactory.getHandler(basicRequest);
+        Assert.assertNotNull(res);
+        Assert.assertTrue(res instanceof BaseHandler);
+
+        basicRequest.setPath("/createUser");
+        var res2 = HandlerFactory.getHandler(basicRequest);
+        Assert.assertNotNull(res2);
+        Assert.assertTrue(res2 instanceof BaseHandler);
+        Assert.assertNotSame(res, res2);
+        Assert.assertNotSame(res.getClass(), res2.getClass());
+    }
+
+    @Test
+    public void routesFriendsWithPathVariables() {
+        var request = new ParsedRequest();
+        request.setPath("/users/10/friends/20/accept");
+        request.setMethod("PUT");
+        Assert.assertTrue(HandlerFactory.getHandler(request) instanceof FriendsHandler);
+        Assert.assertEquals(request.getPathVariable("userId"), "10");
+        Assert.assertEquals(request.getPathVariable("friendId"), "20");
+
+        request.setPath("/users/10/friends/20/reject");
+        Assert.assertTrue(HandlerFactory.getHandler(request) instanceof FallbackHandler);
+    }
+
+    @Test
+    public void wrongMethodIsNotAllowed() {
+        var request = new ParsedRequest();
+        request.setPath("/users/10/friends/20");
+        request.setMethod("GET");
+        var res = HandlerFactory.getHandler(request).handleRequest(request).build();
+        Assert.assertEquals(res.status, StatusCodes.METHOD_NOT_ALLOWED);
+        Assert.assertEquals(res.headers.get("Allow"), "POST, DELETE");
+        Assert.assertNull(request.getPathVariable("userId"));
+    }
+
+    @Test
+    public void handlersAreShared() {
+        var first = new ParsedRequest();
+        first.setPath("/getConversation");
+        var second = new ParsedRequest();
+        second.setPath("/getConversation");
+        Assert.assertSame(HandlerFactory.getHandler(first), HandlerFactory.getHandler(second));
+    }
+
+    @Test
+    public void getRequestHeaders() {
+        int min = 2;
+        int max = 100;
+        int headerLength = new Random().nextInt(max - min) + min;
+        String httpRequest = "GET /someUrl HTTP1.1\n";
+        Map<String, String> keyValues = new HashMap<>();
+        for (int i = 0; i < headerLength; i++) {
+            String key = String.valueOf(Math.random());
+            String value = String.valueOf(Math.random());
+            keyValues.put(key, value);
+            httpRequest += key + ": " + value + "\n";
+        }
+        httpRequest += "\n";
+        System.out.println(httpRequest);
+        ParsedRequest parsedRequest = CustomParser.parse(httpRequest);
+        keyValues.entrySet().stream()
+                .forEach(set -> {
+                    Assert.assertEquals(parsedRequest.getHeaderValue(set.getKey()), set.getValue());
+                });
+    }
+}
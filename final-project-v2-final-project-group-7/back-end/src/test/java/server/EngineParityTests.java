@@ -0,0 +1,157 @@
+package server;
+
+import dto.MessageDto;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import request.RequestFraming;
+import util.MockTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
+
+public class EngineParityTests {
+
+    private static final String REQUEST = "GET /unknownPath?x=1 HTTP/1.1\r\n"
+            + "Host: localhost\r\n"
+            + "Connection: close\r\n"
+            + "\r\n";
+
+    private ServerSocket blockingSocket;
+    private ServerSocketChannel nioChannel;
+
+    @BeforeClass
+    public void startServers() throws IOException {
+        blockingSocket = new ServerSocket(0);
+        var blockingConfig = new ServerConfig().setMode(ServerConfig.ExecutionMode.VIRTUAL);
+        Thread.ofVirtual().start(() -> {
+            try {
+                Server.serve(blockingSocket, blockingConfig);
+            } catch (IOException ignored) {
+                // closed when the tests end
+            }
+        });
+
+        nioChannel = ServerSocketChannel.open();
+        nioChannel.bind(new InetSocketAddress(0));
+        var nioConfig = new ServerConfig().setEngine(ServerConfig.Engine.NIO).setEventLoops(2);
+        var nioServer = new NioServer(nioConfig);
+        Thread.ofVirtual().start(() -> {
+            try {
+                nioServer.serve(nioChannel);
+            } catch (IOException ignored) {
+                // closed when the tests end
+            }
+        });
+    }
+
+    @AfterClass
+    public void stopServers() throws IOException {
+        blockingSocket.close();
+        nioChannel.close();
+    }
+
+    @Test
+    public void nioMatchesBlocking() throws Exception {
+        byte[] blocking = send(blockingSocket.getLocalPort(), REQUEST);
+        byte[] nio = send(nioPort(), REQUEST);
+
+        Assert.assertTrue(new String(blocking, StandardCharsets.UTF_8).startsWith("HTTP/1.1 404"));
+        Assert.assertEquals(nio, blocking);
+    }
+
+    @Test
+    public void pipelinedRequestsAnsweredInOrder() throws Exception {
+        String pipelined = "GET /first HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                + "GET /second HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                + REQUEST;
+        for (int port : new int[]{blockingSocket.getLocalPort(), nioPort()}) {
+            String responses = new String(send(port, pipelined), StandardCharsets.UTF_8);
+            Assert.assertEquals(responses.split("HTTP/1.1 404", -1).length, 4);
+            int firstClose = responses.indexOf("Connection: close");
+            Assert.assertTrue(responses.indexOf("Connection: keep-alive") < firstClose);
+            Assert.assertEquals(responses.lastIndexOf("Connection: close"), firstClose);
+        }
+    }
+
+    @Test
+    public void oversizedRequestAnsweredWith413() throws Exception {
+        String oversized = "POST /sendMessage HTTP/1.1\r\nHost: localhost\r\n"
+                + "Content-Length: 999999999\r\n\r\n";
+        byte[] blocking = send(blockingSocket.getLocalPort(), oversized);
+        byte[] nio = send(nioPort(), oversized);
+
+        Assert.assertTrue(new String(blocking, StandardCharsets.UTF_8).startsWith("HTTP/1.1 413"));
+        Assert.assertEquals(nio, blocking);
+    }
+
+    @Test
+    public void unreadableContentLengthAnsweredWith400() throws Exception {
+        String smuggled = "POST /sendMessage HTTP/1.1\r\nHost: localhost\r\n"
+                + "Content-Length: -7\r\n\r\nGET /getUser HTTP/1.1\r\n\r\n";
+        byte[] blocking = send(blockingSocket.getLocalPort(), smuggled);
+        byte[] nio = send(nioPort(), smuggled);
+
+        Assert.assertTrue(new String(blocking, StandardCharsets.UTF_8).startsWith("HTTP/1.1 400"));
+        Assert.assertEquals(nio, blocking);
+    }
+
+    @Test(singleThreaded = true)
+    public void streamedBodyKeepsTheConnection() throws Exception {
+        var testUtils = new MockTestUtils();
+        var auth = testUtils.createLogin("alice");
+        // far more than one buffer, so it goes out in chunks
+        Mockito.when(testUtils.mockMessageDao.streamConversation("alice_bob"))
+                .thenAnswer(invocation -> IntStream.range(0, 2000).mapToObj(i -> {
+                    var message = new MessageDto();
+                    message.setFromId("alice");
+                    message.setMessage("message " + i);
+                    message.setTimestamp((long) i);
+                    return message;
+                }));
+        String pipelined = "GET /getConversation?conversationId=alice_bob HTTP/1.1\r\n"
+                + "Host: localhost\r\nCookie: auth=" + auth.getHash() + "\r\n\r\n"
+                + REQUEST;
+        byte[] blocking = send(blockingSocket.getLocalPort(), pipelined);
+        byte[] nio = send(nioPort(), pipelined);
+
+        String responses = new String(blocking, StandardCharsets.UTF_8);
+        Assert.assertTrue(responses.startsWith("HTTP/1.1 200"));
+        Assert.assertTrue(responses.contains("Transfer-Encoding: chunked"));
+        Assert.assertTrue(responses.contains("message 1999"));
+        Assert.assertTrue(responses.contains("HTTP/1.1 404"));
+        Assert.assertEquals(nio, blocking);
+    }
+
+    @Test
+    public void completeOnlyAfterContentLength() {
+        byte[] partial = "POST /login HTTP/1.1\r\nContent-Length: 10\r\n\r\n{\"a\":"
+                .getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(RequestFraming.frameLength(partial, 0, partial.length), -1);
+        byte[] full = "POST /login HTTP/1.1\r\ncontent-length: 10\r\n\r\n{\"a\":\"bc\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(RequestFraming.frameLength(full, 0, full.length), full.length);
+        byte[] headersOnly = "GET /hello HTTP/1.1\r\nHost: x\r\n".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(RequestFraming.frameLength(headersOnly, 0, headersOnly.length), -1);
+    }
+
+    private int nioPort() throws IOException {
+        return ((InetSocketAddress) nioChannel.getLocalAddress()).getPort();
+    }
+
+    private static byte[] send(int port, String request) throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(5000);
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+            return socket.getInputStream().readAllBytes();
+        }
+    }
+}
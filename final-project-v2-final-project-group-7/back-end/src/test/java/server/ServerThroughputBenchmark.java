@@ -0,0 +1,105 @@
+package server;
+
+import dao.AuthDao;
+import dao.MessageDao;
+import dto.AuthDto;
+import dto.MessageDto;
+import org.mockito.Mockito;
+
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Compares requests per second of the serial accept loop against the concurrent modes.
+// Mongo is replaced by mocks that sleep to simulate a query round trip, so the numbers
+// show how much a slow MessageDao query holds up other clients in each mode.
+// Run with: mvn test-compile exec:java -Dexec.mainClass=server.ServerThroughputBenchmark
+//           -Dexec.classpathScope=test
+public class ServerThroughputBenchmark {
+
+    private static final int CLIENTS = 64;
+    private static final int REQUESTS_PER_CLIENT = 20;
+    private static final long QUERY_DELAY_MS = 5;
+
+    public static void main(String[] args) throws Exception {
+        installSlowDaos();
+        for (ServerConfig.ExecutionMode mode : ServerConfig.ExecutionMode.values()) {
+            var config = new ServerConfig().setPort(0).setMode(mode).setPoolSize(16);
+            double throughput = run(config);
+            System.out.printf("%-8s %10.1f req/s%n", mode, throughput);
+        }
+    }
+
+    private static double run(ServerConfig config) throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            Thread acceptThread = new Thread(() -> {
+                try {
+                    Server.serve(serverSocket, config);
+                } catch (Exception ignored) {
+                    // socket closed at the end of the run
+                }
+            });
+            acceptThread.start();
+
+            int port = serverSocket.getLocalPort();
+            ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                futures.add(clients.submit(() -> {
+                    for (int j = 0; j < REQUESTS_PER_CLIENT; j++) {
+                        sendRequest(port);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            clients.shutdown();
+            return CLIENTS * REQUESTS_PER_CLIENT / (elapsed / 1_000_000_000.0);
+        }
+    }
+
+    private static void sendRequest(int port) throws Exception {
+        try (Socket socket = new Socket("localhost", port)) {
+            String request = "GET /getConversation?conversationId=a_b HTTP/1.1\r\n"
+                    + "Host: localhost\r\n"
+                    + "Cookie: auth=bench\r\n"
+                    + "Connection: close\r\n"
+                    + "\r\n";
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+            InputStream in = socket.getInputStream();
+            in.readAllBytes();
+        }
+    }
+
+    private static void installSlowDaos() {
+        AuthDao authDao = Mockito.mock(AuthDao.class);
+        MessageDao messageDao = Mockito.mock(MessageDao.class);
+        var auth = new AuthDto();
+        auth.setUserName("a");
+        auth.setHash("bench");
+        Mockito.doAnswer(invocation -> {
+            Thread.sleep(QUERY_DELAY_MS);
+            return List.of(auth);
+        }).when(authDao).querySession("bench");
+        Mockito.doAnswer(invocation -> {
+            Thread.sleep(QUERY_DELAY_MS);
+            var message = new MessageDto();
+            message.setConversationId("a_b");
+            message.setMessage("hello");
+            return List.of(message);
+        }).when(messageDao).query("conversationId", "a_b");
+        AuthDao.setInstanceSupplier(() -> authDao);
+        MessageDao.setInstanceSupplier(() -> messageDao);
+    }
+}
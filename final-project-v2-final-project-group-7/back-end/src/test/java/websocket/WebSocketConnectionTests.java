@@ -0,0 +1,115 @@
+package websocket;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class WebSocketConnectionTests {
+
+    @Test
+    public void acceptKeyFromRfc() {
+        Assert.assertEquals(WebSocketConnection.acceptKey("dGhlIHNhbXBsZSBub25jZQ=="),
+                "s3pPLMBiTxaQ9kYGzzhZRbK+xOo=");
+    }
+
+    @Test
+    public void joinsFragmentsAndAnswersPingInBetween() throws IOException {
+        var client = new ByteArrayOutputStream();
+        client.write(frame(false, 0x1, "Hel".getBytes(StandardCharsets.UTF_8)));
+        client.write(frame(true, 0x9, "p".getBytes(StandardCharsets.UTF_8)));
+        client.write(frame(true, 0x0, "lo".getBytes(StandardCharsets.UTF_8)));
+        var out = new ByteArrayOutputStream();
+        var socket = new WebSocketConnection(new ByteArrayInputStream(client.toByteArray()), out,
+                1024);
+
+        Assert.assertEquals(socket.readText(), "Hello");
+        Assert.assertNull(socket.readText());
+        Assert.assertEquals(out.toByteArray(), new byte[] {(byte) 0x8A, 1, 'p'});
+    }
+
+    @Test
+    public void longMessageUsesExtendedLength() throws IOException {
+        String text = "x".repeat(70000);
+        var socket = new WebSocketConnection(new ByteArrayInputStream(
+                frame(true, 0x1, text.getBytes(StandardCharsets.UTF_8))),
+                new ByteArrayOutputStream(), 100000);
+
+        Assert.assertEquals(socket.readText(), text);
+    }
+
+    @Test
+    public void echoesClose() throws IOException {
+        var out = new ByteArrayOutputStream();
+        var socket = new WebSocketConnection(new ByteArrayInputStream(
+                frame(true, 0x8, new byte[] {0x03, (byte) 0xE8})), out, 1024);
+
+        Assert.assertNull(socket.readText());
+        Assert.assertEquals(out.toByteArray(), new byte[] {(byte) 0x88, 2, 0x03, (byte) 0xE8});
+        Assert.assertThrows(IOException.class, () -> socket.sendText("late"));
+    }
+
+    @Test
+    public void rejectsUnmaskedFrame() {
+        byte[] unmasked = {(byte) 0x81, 2, 'h', 'i'};
+        assertClosedWith(unmasked, 1024, WebSocketConnection.PROTOCOL_ERROR);
+    }
+
+    @Test
+    public void rejectsMessageOverLimit() {
+        byte[] big = frame(true, 0x1, new byte[200]);
+        assertClosedWith(big, 100, WebSocketConnection.MESSAGE_TOO_BIG);
+    }
+
+    @Test
+    public void rejectsBinaryAndInvalidText() {
+        assertClosedWith(frame(true, 0x2, new byte[] {1, 2}), 1024,
+                WebSocketConnection.UNSUPPORTED_DATA);
+        assertClosedWith(frame(true, 0x1, new byte[] {(byte) 0xC3}), 1024,
+                WebSocketConnection.INVALID_PAYLOAD);
+    }
+
+    private static void assertClosedWith(byte[] input, int maxMessageBytes, int code) {
+        var out = new ByteArrayOutputStream();
+        var socket = new WebSocketConnection(new ByteArrayInputStream(input), out,
+                maxMessageBytes);
+        try {
+            socket.readText();
+            Assert.fail("expected a protocol error");
+        } catch (WebSocketProtocolException e) {
+            Assert.assertEquals(e.closeCode, code);
+        } catch (IOException e) {
+            Assert.fail("unexpected " + e);
+        }
+        byte[] sent = out.toByteArray();
+        Assert.assertEquals(sent[0], (byte) 0x88);
+        Assert.assertEquals(((sent[2] & 0xFF) << 8) | (sent[3] & 0xFF), code);
+    }
+
+    // a masked client frame
+    private static byte[] frame(boolean fin, int opcode, byte[] payload) {
+        var frame = new ByteArrayOutputStream();
+        frame.write((fin ? 0x80 : 0) | opcode);
+        if (payload.length <= 125) {
+            frame.write(0x80 | payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            frame.write(0x80 | 126);
+            frame.write(payload.length >> 8);
+            frame.write(payload.length);
+        } else {
+            frame.write(0x80 | 127);
+            for (int i = 7; i >= 0; i--) {
+                frame.write((int) ((long) payload.length >> (8 * i)));
+            }
+        }
+        byte[] mask = {0x12, 0x34, 0x56, 0x78};
+        frame.writeBytes(mask);
+        for (int i = 0; i < payload.length; i++) {
+            frame.write(payload[i] ^ mask[i & 3]);
+        }
+        return frame.toByteArray();
+    }
+}
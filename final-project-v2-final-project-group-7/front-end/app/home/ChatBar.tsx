@@ -21,10 +21,15 @@ interface MessageDto {
   time?: string;
 }
 
+// messages fetched per request when opening or scrolling back through a chat
+const PAGE_SIZE = 50;
+
 export default function ChatBar({ currentUser, targetUser }: Props) {
   const [messages, setMessages] = React.useState<MessageDto[]>([]);
   // recipient input removed; use targetUserInput state instead
   const [text, setText] = React.useState('');
+  // where the next older page starts, null once the whole history is loaded
+  const [olderCursor, setOlderCursor] = React.useState<string | null>(null);
   const messagesRef = React.useRef<HTMLDivElement | null>(null);
   if (!currentUser || !targetUser) return;
 
@@ -39,7 +44,8 @@ export default function ChatBar({ currentUser, targetUser }: Props) {
 
   async function loadConversation() {
     try {
-      const res = await fetch(`/api/getConversation?conversationId=${encodeURIComponent(conversationId)}`);
+      // only the latest page, older ones are fetched on demand
+      const res = await fetch(`/api/getConversation?conversationId=${encodeURIComponent(conversationId)}&limit=${PAGE_SIZE}`);
       if (!res.ok) {
         console.error('Failed to load conversation', await res.text());
         return;
@@ -47,17 +53,52 @@ export default function ChatBar({ currentUser, targetUser }: Props) {
       const data = await res.json();
       console.log('Loaded messages:', data.data);
       setMessages(data.data || []);
+      setOlderCursor(data.nextCursor || null);
     } catch (err) {
       console.error('Error loading conversation', err);
     }
   }
 
+  async function loadOlder() {
+    if (!olderCursor) return;
+    try {
+      const res = await fetch(`/api/getConversation?conversationId=${encodeURIComponent(conversationId)}&limit=${PAGE_SIZE}&before=${encodeURIComponent(olderCursor)}`);
+      if (!res.ok) {
+        console.error('Failed to load older messages', await res.text());
+        return;
+      }
+      const data = await res.json();
+      setMessages((prev) => [...(data.data || []), ...prev]);
+      setOlderCursor(data.nextCursor || null);
+    } catch (err) {
+      console.error('Error loading older messages', err);
+    }
+  }
+
 
   // load conversation when currentUser or conversationId changes
   React.useEffect(() => {
     loadConversation();
   }, [currentUser, conversationId]);
 
+  // new messages are pushed by the server as they are stored instead of re-fetching
+  React.useEffect(() => {
+    const events = new EventSource(`/api/streamConversation?conversationId=${encodeURIComponent(conversationId)}`);
+    let opened = false;
+    events.onopen = () => {
+      // messages sent while we were disconnected never reach the stream
+      if (opened) loadConversation();
+      opened = true;
+    };
+    events.onmessage = (event) => {
+      const message: MessageDto = JSON.parse(event.data);
+      setMessages((prev) =>
+        message.uniqueId && prev.some((m) => m.uniqueId === message.uniqueId) ? prev : [...prev, message]
+      );
+    };
+    return () => events.close();
+  }, [currentUser, conversationId]);
+
   async function send() {
 
     // compute conversation id for this pair
@@ -71,15 +112,6 @@ export default function ChatBar({ currentUser, targetUser }: Props) {
       fromId: currentUser,
     };
 
-    // optimistic UI message while waiting for server
-    const optimistic = {
-      from: currentUser || 'me',
-      to: targetUser || '',
-      text: text.trim(),
-      time: new Date().toLocaleTimeString(),
-    } as MessageDto;
-
-    loadConversation();
     setText('');
 
     try {
@@ -89,33 +121,8 @@ export default function ChatBar({ currentUser, targetUser }: Props) {
         body: JSON.stringify(payload),
       });
 
-      if (res.ok) {
-        const data = await res.json();
-        // map server response to UI-friendly shape
-        const serverMsg: MessageDto = {
-          from: data.from || data.fromId || currentUser || 'me',
-          to: data.to || data.toId || targetUser || '',
-          text: data.text || data.message || payload.message,
-          time: data.time || data.createdAt || new Date().toLocaleTimeString(),
-          // keep any ids returned
-          fromId: data.fromId || payload.fromId,
-          toId: data.toId || payload.toId,
-          uniqueId: data.uniqueId || data.id,
-        };
-
-        // replace the optimistic message with server message
-        setMessages((prev) => {
-          const copy = [...prev];
-          // find last optimistic message matching text and recipient
-          const idx = copy.findLastIndex((m) => (m.text || m.message) === optimistic.text && (m.to || m.toId) === optimistic.to);
-          if (idx !== -1) {
-            copy[idx] = serverMsg;
-          } else {
-            copy.push(serverMsg);
-          }
-          return copy;
-        });
-      } else {
+      // the stored message comes back over the event stream
+      if (!res.ok) {
         console.error('Failed to send message', await res.text());
       }
     } catch (err) {
@@ -138,6 +145,11 @@ export default function ChatBar({ currentUser, targetUser }: Props) {
           background: '#fafafa',
         }}
       >
+        {olderCursor && (
+          <button onClick={loadOlder} style={{ marginBottom: 8, fontSize: 12 }}>
+            Load earlier messages
+          </button>
+        )}
         {messages.length === 0 ? (
           <div style={{ color: '#000' }}>No messages yet.</div>
         ) : (
@@ -2,6 +2,7 @@
 
 import Layout from "@/app/layout";
 import React from "react";
+import { useRouter } from "next/navigation";
 import ChatBar from "./ChatBar";
 import ChatList from "./ChatList";
 
@@ -14,6 +15,7 @@ interface UserDto {
 
 export default function Home() {
 
+  const router = useRouter();
   const [user, setUser] = React.useState<UserDto | null>(null);
   const [loading, setLoading] = React.useState(true);
   const [activeChatUser, setActiveChatUser] = React.useState<string | null>(null);
@@ -31,6 +33,14 @@ export default function Home() {
       .finally(() => setLoading(false));
   }, []);
 
+  const logout = () => {
+    fetch("/api/logout", { method: "POST" })
+      .catch((err) => {
+        console.error(err);
+      })
+      .finally(() => router.push('/'));
+  };
+
   const formatNumber = (n?: number) => (typeof n === 'number' ? n.toLocaleString() : '—');
 
   // Early return when loading finished but no user data
@@ -45,7 +55,10 @@ export default function Home() {
 
   return (
     <div style={{ padding: 20 }}>
-      <h1 style={{ margin: 0 }}>Welcome{user ? `, ${user.userName}` : ''}!</h1>
+      <div style={{ display: 'flex', alignItems: 'center', justifyContent: 'space-between' }}>
+        <h1 style={{ margin: 0 }}>Welcome{user ? `, ${user.userName}` : ''}!</h1>
+        <button onClick={logout} style={{ padding: '6px 10px' }}>Log out</button>
+      </div>
       <p style={{ marginTop: 8 }}>Here's your dashboard overview.</p>
 
       {loading ? (